@@ -0,0 +1,178 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.groupon.promise.AsyncPromiseFunction;
+import com.groupon.promise.ComparablePromiseFunction;
+import com.groupon.promise.Promise;
+import com.groupon.promise.PromiseFuture;
+import com.groupon.promise.PromiseImpl;
+import com.groupon.promise.PromiseList;
+import com.groupon.promise.SyncPromiseFunction;
+import com.groupon.promise.SyncPromiseListFunction;
+
+/**
+ * Builds the chain of a simulated request: each level fans out into a list of elements, maps over them, and applies a
+ * mix of synchronous CPU stages and asynchronous backend calls to each element before fanning out again.  The shape of
+ * each chain is derived from the request seed, so a run is reproducible.
+ *
+ * @since 0.13
+ */
+final class ChainFactory {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final SimulatedBackend backend;
+    private final int depth;
+    private final int fanout;
+    private final int concurrency;
+    private final int stages;
+    private final double asyncRatio;
+    private final long cpuNanos;
+    private final int keys;
+
+    ChainFactory(SimulatedBackend backend, LoadOptions options) {
+        this.backend = backend;
+        this.depth = options.getInt("depth");
+        this.fanout = options.getInt("fanout");
+        this.concurrency = options.getInt("concurrency");
+        this.stages = options.getInt("stages");
+        this.asyncRatio = options.getDouble("asyncRatio");
+        this.cpuNanos = TimeUnit.MICROSECONDS.toNanos(options.getLong("cpuMicros"));
+        this.keys = options.getInt("keys");
+    }
+
+    /**
+     * Build the chain of a request.  The caller attaches to {@link PromiseImpl#after()} and fulfills the root.
+     */
+    PromiseImpl<Item> build(long requestSeed) {
+        PromiseImpl<Item> root = new PromiseImpl<>();
+        buildLevel(root, 0, new SplittableRandom(requestSeed), requestSeed);
+        return root;
+    }
+
+    private void buildLevel(Promise<Item> parent, int level, SplittableRandom shape, long requestSeed) {
+        if (level == depth) {
+            return;
+        }
+
+        PromiseList<Item> list = parent.thenListSync(new FanOut(level + 1));
+        Promise<Item> element = concurrency > 0 ? list.map(concurrency) : list.map();
+        for (int stage = 0; stage < stages; stage++) {
+            if (shape.nextDouble() < asyncRatio) {
+                element = element.thenAsync(new BackendCall(level * stages + stage, requestSeed));
+            } else {
+                element = element.thenSync(new CpuStage());
+            }
+        }
+        buildLevel(element, level + 1, shape, requestSeed);
+    }
+
+    /**
+     * An element of a level.  Elements with the same level and key are equal, so calls on them are deduplicated.
+     */
+    static final class Item {
+        final int level;
+        final long id;
+        final long key;
+        final long checksum;
+
+        Item(int level, long id, long key, long checksum) {
+            this.level = level;
+            this.id = id;
+            this.key = key;
+            this.checksum = checksum;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            } else if (!(o instanceof Item)) {
+                return false;
+            }
+            Item that = (Item) o;
+            return level == that.level && key == that.key;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * level + Long.hashCode(key);
+        }
+    }
+
+    private final class FanOut implements SyncPromiseListFunction<Item, Item> {
+        private final int level;
+
+        FanOut(int level) {
+            this.level = level;
+        }
+
+        @Override
+        public Collection<Item> handle(Item parent) {
+            List<Item> children = new ArrayList<>(fanout);
+            for (int i = 0; i < fanout; i++) {
+                long id = parent.id * fanout + i + 1;
+                children.add(new Item(level, id, keys > 0 ? Math.floorMod(id, keys) : id, parent.checksum));
+            }
+            return children;
+        }
+    }
+
+    private final class CpuStage implements SyncPromiseFunction<Item, Item> {
+        @Override
+        public Item handle(Item item) {
+            long checksum = item.checksum;
+            long deadline = System.nanoTime() + cpuNanos;
+            do {
+                for (int i = 0; i < 64; i++) {
+                    checksum = (checksum ^ (checksum >>> 31)) * GOLDEN_GAMMA + i;
+                }
+            } while (System.nanoTime() < deadline);
+            return new Item(item.level, item.id, item.key, checksum);
+        }
+    }
+
+    private final class BackendCall implements AsyncPromiseFunction<Item, Item>, ComparablePromiseFunction {
+        private final int stage;
+        private final long requestSeed;
+
+        BackendCall(int stage, long requestSeed) {
+            this.stage = stage;
+            this.requestSeed = requestSeed;
+        }
+
+        @Override
+        public PromiseFuture<Item> handle(Item item) {
+            return backend.call(item, requestSeed ^ (item.id * GOLDEN_GAMMA) ^ stage);
+        }
+
+        @Override
+        public boolean equivalent(Object o) {
+            return o instanceof BackendCall && ((BackendCall) o).stage == stage;
+        }
+
+        @Override
+        public int equivalenceHash() {
+            return stage;
+        }
+    }
+}
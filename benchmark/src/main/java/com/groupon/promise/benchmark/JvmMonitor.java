@@ -0,0 +1,128 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.groupon.promise.metrics.Histogram;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Measures the allocation and garbage collection of the JVM over a window.  Allocation is the sum of the bytes
+ * allocated by every live thread, so it excludes threads which exit during the window; the load generator only uses
+ * long lived pools.  Pauses are taken from collection notifications, skipping the concurrent phases of collectors
+ * which report them.
+ *
+ * @since 0.13
+ */
+final class JvmMonitor implements NotificationListener, AutoCloseable {
+    private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final Histogram pauses = new Histogram();
+    private final boolean allocationSupported = threads.isThreadAllocatedMemorySupported()
+            && threads.isThreadAllocatedMemoryEnabled();
+
+    private volatile boolean recording;
+    private long startNanos;
+    private long elapsedNanos;
+    private long startAllocated;
+    private long allocated;
+
+    JvmMonitor() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) collector;
+                emitter.addNotificationListener(this, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    void start() {
+        pauses.reset();
+        startAllocated = allocatedBytes();
+        startNanos = System.nanoTime();
+        recording = true;
+    }
+
+    void stop() {
+        recording = false;
+        elapsedNanos = System.nanoTime() - startNanos;
+        // Threads which exit during the window take their allocation with them, so the difference can be negative.
+        allocated = Math.max(0L, allocatedBytes() - startAllocated);
+    }
+
+    void report(StringBuilder out, long requests) {
+        double seconds = elapsedNanos / 1e9;
+        if (allocationSupported) {
+            out.append(String.format(Locale.ROOT, "allocation  %.1f MB/s, %d bytes/request%n",
+                    allocated / seconds / (1024 * 1024), requests > 0 ? allocated / requests : 0L));
+        } else {
+            out.append("allocation  unsupported by this JVM\n");
+        }
+        out.append(String.format(Locale.ROOT, "gc pauses   %d, total %d ms, p99 %d ms, max %d ms%n",
+                pauses.count(), Math.round(pauses.mean() * pauses.count()), pauses.valueAtQuantile(0.99),
+                pauses.max()));
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!recording || !GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+                (CompositeData) notification.getUserData());
+        String action = info.getGcAction().toLowerCase(Locale.ROOT);
+        String name = info.getGcName().toLowerCase(Locale.ROOT);
+        if (!action.contains("concurrent") && !name.contains("concurrent") && !name.contains("cycles")) {
+            pauses.record(info.getGcInfo().getDuration());
+        }
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (ListenerNotFoundException ex) {
+                // Already removed.
+            }
+        }
+    }
+
+    private long allocatedBytes() {
+        if (!allocationSupported) {
+            return 0L;
+        }
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.benchmark;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.groupon.promise.PromiseImpl;
+import com.groupon.promise.benchmark.ChainFactory.Item;
+import com.groupon.promise.metrics.Histogram;
+
+/**
+ * A macro benchmark which drives simulated service requests through promise chains at a fixed rate and reports their
+ * latency distribution, throughput, allocation and garbage collection pauses.
+ *
+ * The load is open loop: requests are started on schedule whether or not earlier requests have completed, and latency
+ * is measured from when a request was scheduled to start, so a stall is reflected in the latency of every request it
+ * delays.  Requests are started on a pool of client threads, synchronous stages run on whichever thread completes the
+ * stage before them, and asynchronous calls complete on the simulated backend's I/O threads.
+ *
+ * <pre>
+ * java -Xmx2g -jar promise-benchmark.jar --rps=2000 --depth=2 --fanout=10 --asyncRatio=0.5
+ * </pre>
+ *
+ * @since 0.13
+ */
+public final class LoadGenerator {
+    private static final long DRAIN_TIMEOUT_SECONDS = 30;
+
+    private final LoadOptions options;
+    private final Histogram latencies = new Histogram();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private long dropped;
+    private long started;
+
+    LoadGenerator(LoadOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length == 1 && "--help".equals(args[0])) {
+            System.out.print(LoadOptions.usage());
+            return;
+        }
+
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.print(LoadOptions.usage());
+            System.exit(2);
+            return;
+        }
+        System.out.print(new LoadGenerator(options).run());
+    }
+
+    String run() throws InterruptedException {
+        SimulatedBackend backend = new SimulatedBackend(options.getInt("ioThreads"),
+                options.getDouble("latencyMillis"), options.getDouble("latencySigma"));
+        ChainFactory chains = new ChainFactory(backend, options);
+        ExecutorService clients = Executors.newFixedThreadPool(options.getInt("clientThreads"), runnable -> {
+            Thread thread = new Thread(runnable, "client");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        StringBuilder report = new StringBuilder();
+        try (JvmMonitor monitor = new JvmMonitor()) {
+            double rps = options.getDouble("rps");
+            long seed = options.getLong("seed");
+
+            long next = drive(clients, chains, rps, options.getLong("warmup"), seed, 0L, false);
+            awaitDrained();
+            resetCounters();
+
+            monitor.start();
+            long startNanos = System.nanoTime();
+            drive(clients, chains, rps, options.getLong("duration"), seed, next, true);
+            long driveNanos = System.nanoTime() - startNanos;
+            long doneWhileDriving = completed.get() + failed.get();
+            boolean drained = awaitDrained();
+            long drainNanos = System.nanoTime() - startNanos - driveNanos;
+            monitor.stop();
+
+            report.append(options).append('\n');
+            report(report, doneWhileDriving, driveNanos, drainNanos, drained);
+            monitor.report(report, completed.get() + failed.get());
+        } finally {
+            clients.shutdownNow();
+            backend.shutdown();
+        }
+        return report.toString();
+    }
+
+    /**
+     * Start requests at the rate for the duration, returning the index of the next request.
+     */
+    private long drive(ExecutorService clients, ChainFactory chains, double rps, long seconds, long seed, long first,
+                       boolean measured) {
+        long begin = System.nanoTime();
+        long end = begin + TimeUnit.SECONDS.toNanos(seconds);
+        long maxOutstanding = options.getLong("maxOutstanding");
+        long request = first;
+        for (long i = 0; ; i++, request++) {
+            long scheduled = begin + (long) (i * 1e9 / rps);
+            if (scheduled >= end) {
+                return request;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            started++;
+            if (outstanding.get() >= maxOutstanding) {
+                dropped++;
+                continue;
+            }
+            outstanding.incrementAndGet();
+            long requestSeed = seed * 0x9e3779b97f4a7c15L + request;
+            clients.execute(() -> start(chains, requestSeed, scheduled, measured));
+        }
+    }
+
+    private void start(ChainFactory chains, long requestSeed, long scheduled, boolean measured) {
+        PromiseImpl<Item> root = chains.build(requestSeed);
+        root.after().thenSync(value -> {
+            finish(scheduled, measured, completed);
+            return null;
+        }, error -> {
+            finish(scheduled, measured, failed);
+            return null;
+        });
+        root.fulfill(new Item(0, 0L, 0L, requestSeed));
+    }
+
+    private void finish(long scheduled, boolean measured, AtomicLong counter) {
+        if (measured) {
+            latencies.record(System.nanoTime() - scheduled);
+        }
+        counter.incrementAndGet();
+        outstanding.decrementAndGet();
+    }
+
+    private boolean awaitDrained() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_TIMEOUT_SECONDS);
+        while (outstanding.get() > 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private void resetCounters() {
+        latencies.reset();
+        completed.set(0L);
+        failed.set(0L);
+        dropped = 0L;
+        started = 0L;
+    }
+
+    /**
+     * Throughput is the rate of completions while requests were being started, so the drain at the end does not
+     * dilute the sustained rate.
+     */
+    private void report(StringBuilder out, long doneWhileDriving, long driveNanos, long drainNanos, boolean drained) {
+        out.append(String.format(Locale.ROOT, "requests    %d started, %d completed, %d failed, %d dropped%s%n",
+                started, completed.get(), failed.get(), dropped,
+                drained ? "" : ", " + outstanding.get() + " still outstanding"));
+        out.append(String.format(Locale.ROOT, "throughput  %.1f requests/s, drained in %s%n",
+                doneWhileDriving / (driveNanos / 1e9), millis(drainNanos)));
+        out.append(String.format(Locale.ROOT, "latency     p50 %s, p99 %s, p999 %s, max %s%n",
+                millis(latencies.valueAtQuantile(0.5)), millis(latencies.valueAtQuantile(0.99)),
+                millis(latencies.valueAtQuantile(0.999)), millis(latencies.max())));
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f ms", nanos / 1e6);
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.benchmark;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The options of a load generator run, parsed from arguments of the form --name=value.
+ *
+ * @since 0.13
+ */
+final class LoadOptions {
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+    private static final Map<String, String> DESCRIPTIONS = new LinkedHashMap<>();
+
+    static {
+        option("rps", "1000", "Requests started per second");
+        option("warmup", "10", "Seconds of load before measuring");
+        option("duration", "30", "Seconds of load measured");
+        option("depth", "2", "Levels of list fan-out in each chain");
+        option("fanout", "8", "Elements produced at each level");
+        option("concurrency", "0", "Concurrency limit of each map, 0 for unlimited");
+        option("stages", "2", "Stages applied to each element at each level");
+        option("asyncRatio", "0.5", "Fraction of stages which are asynchronous calls");
+        option("cpuMicros", "20", "CPU time of each synchronous stage");
+        option("latencyMillis", "5", "Median latency of each asynchronous call");
+        option("latencySigma", "0.5", "Log-normal shape of the latency, 0 for a fixed latency");
+        option("keys", "0", "Distinct call keys per level, 0 for unique keys; small values exercise deduplication");
+        option("clientThreads", "4", "Threads starting requests");
+        option("ioThreads", "4", "Threads completing asynchronous calls");
+        option("maxOutstanding", "100000", "Requests in flight before new requests are dropped");
+        option("seed", "42", "Seed of the chain shapes and latencies");
+    }
+
+    private final Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+
+    private LoadOptions() {
+    }
+
+    private static void option(String name, String defaultValue, String description) {
+        DEFAULTS.put(name, defaultValue);
+        DESCRIPTIONS.put(name, description);
+    }
+
+    /**
+     * Parse the arguments.
+     *
+     * @throws IllegalArgumentException if an argument is malformed or unknown
+     */
+    static LoadOptions parse(String... args) {
+        LoadOptions options = new LoadOptions();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value: " + arg);
+            }
+            String name = arg.substring(2, separator);
+            if (!DEFAULTS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option: " + name);
+            }
+            options.values.put(name, arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    static String usage() {
+        StringBuilder usage = new StringBuilder("Options:\n");
+        for (Map.Entry<String, String> entry : DESCRIPTIONS.entrySet()) {
+            usage.append(String.format(Locale.ROOT, "  --%-15s %s (default %s)%n",
+                    entry.getKey(), entry.getValue(), DEFAULTS.get(entry.getKey())));
+        }
+        return usage.toString();
+    }
+
+    int getInt(String name) {
+        return Integer.parseInt(values.get(name));
+    }
+
+    long getLong(String name) {
+        return Long.parseLong(values.get(name));
+    }
+
+    double getDouble(String name) {
+        return Double.parseDouble(values.get(name));
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values.entrySet().toArray());
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.groupon.promise.DefaultPromiseFuture;
+import com.groupon.promise.PromiseFuture;
+
+/**
+ * An in-process stand-in for remote services.  A call completes its future on one of the I/O threads after a latency
+ * drawn from a log-normal distribution, which has the long right tail of real service latencies.
+ *
+ * @since 0.13
+ */
+final class SimulatedBackend {
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final long medianNanos;
+    private final double sigma;
+
+    SimulatedBackend(int threads, double medianMillis, double sigma) {
+        AtomicInteger index = new AtomicInteger();
+        this.scheduler = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "backend-io-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.medianNanos = (long) (medianMillis * TimeUnit.MILLISECONDS.toNanos(1));
+        this.sigma = sigma;
+    }
+
+    /**
+     * Start a call which completes with the value after a latency sampled from the seed, so the same call always takes
+     * the same time whichever thread makes it.
+     */
+    <T> PromiseFuture<T> call(T value, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        DefaultPromiseFuture<T> future = new DefaultPromiseFuture<>();
+        long latency = sigma > 0.0 ? (long) (medianNanos * Math.exp(sigma * gaussian(random))) : medianNanos;
+        scheduler.schedule(() -> {
+            future.setResult(value);
+        }, latency, TimeUnit.NANOSECONDS);
+        return future;
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller, since SplittableRandom has no nextGaussian.
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE_INTERESTING;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+/**
+ * Stress a handler being set on a DefaultPromiseFuture while another thread completes it, as happens when an
+ * asynchronous function completes its future on an I/O thread before the chain has attached to it.
+ *
+ * The contract is that the handler is called exactly once and sees the result.  The future is not synchronized, so a
+ * lost or repeated call is currently possible; those outcomes are reported as interesting rather than forbidden so the
+ * suite documents the existing behavior.  A change to the future must not introduce any other outcome, and a
+ * thread-safe implementation should be able to make the interesting outcomes forbidden.
+ *
+ * @since 0.13
+ */
+@JCStressTest
+@Description("DefaultPromiseFuture.setHandler racing DefaultPromiseFuture.setResult")
+@Outcome(id = "1, 1", expect = ACCEPTABLE, desc = "Handler called once and sees the result.")
+@Outcome(id = "1, 0", expect = ACCEPTABLE_INTERESTING, desc = "Handler called once but the result is not visible.")
+@Outcome(id = "0, 0", expect = ACCEPTABLE_INTERESTING, desc = "Completion lost: each side missed the other.")
+@Outcome(id = "2, 1", expect = ACCEPTABLE_INTERESTING, desc = "Handler called by both sides.")
+@Outcome(id = "2, 0", expect = ACCEPTABLE_INTERESTING, desc = "Handler called by both sides, once without the result.")
+@State
+public class DefaultPromiseFutureStress {
+    private final DefaultPromiseFuture<String> future = new DefaultPromiseFuture<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger resultsSeen = new AtomicInteger();
+
+    @Actor
+    public void setHandler() {
+        future.setHandler(completed -> {
+            calls.incrementAndGet();
+            if ("value".equals(completed.result())) {
+                resultsSeen.incrementAndGet();
+            }
+        });
+    }
+
+    @Actor
+    public void setResult() {
+        future.setResult("value");
+    }
+
+    @Arbiter
+    public void arbiter(II_Result r) {
+        r.r1 = calls.get();
+        r.r2 = Math.min(resultsSeen.get(), 1);
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.I_Result;
+
+/**
+ * Stress the double-checked creation of the after promise by two threads.  Both must receive the same, fully
+ * constructed promise, or one side's chain would never be dispatched.
+ *
+ * @since 0.13
+ */
+@JCStressTest
+@Description("Concurrent PromiseImpl.after() creation")
+@Outcome(id = "1", expect = ACCEPTABLE, desc = "Both threads received the same promise.")
+@Outcome(id = "0", expect = FORBIDDEN, desc = "Two after promises were created.")
+@State
+public class PromiseAfterStress {
+    private final PromiseImpl<String> promise = new PromiseImpl<>();
+    private Promise<Void> first;
+    private Promise<Void> second;
+
+    @Actor
+    public void first() {
+        first = promise.after();
+    }
+
+    @Actor
+    public void second() {
+        second = promise.after();
+    }
+
+    @Arbiter
+    public void arbiter(I_Result r) {
+        r.r1 = first != null && first == second ? 1 : 0;
+    }
+}
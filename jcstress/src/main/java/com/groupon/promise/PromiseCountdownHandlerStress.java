@@ -0,0 +1,143 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+/**
+ * Stress the last completions of a countdown arriving on different threads.  The result of each test is the number of
+ * success calls, the number of failure calls and the number of failures carried by the aggregate.
+ *
+ * Only the thread which counts down to zero may complete the countdown, and it must see every failure recorded before
+ * the count reached zero, so a failure can never be lost to a success completing concurrently.
+ *
+ * @since 0.13
+ */
+public class PromiseCountdownHandlerStress {
+
+    @State
+    public static class Countdown {
+        final Exception failure1 = new Exception("failure1");
+        final Exception failure2 = new Exception("failure2");
+        final AtomicInteger successes = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicReference<Throwable> cause = new AtomicReference<>();
+        final PromiseCountdownHandler handler = new PromiseCountdownHandler(new AtomicInteger(2),
+                value -> successes.incrementAndGet(),
+                throwable -> {
+                    failures.incrementAndGet();
+                    cause.set(throwable);
+                });
+
+        void result(III_Result r) {
+            r.r1 = successes.get();
+            r.r2 = failures.get();
+            Throwable throwable = cause.get();
+            if (throwable == null) {
+                r.r3 = 0;
+            } else {
+                List<Throwable> suppressed = Arrays.asList(throwable.getSuppressed());
+                r.r3 = (suppressed.contains(failure1) ? 1 : 0) + (suppressed.contains(failure2) ? 1 : 0);
+            }
+        }
+    }
+
+    /**
+     * A success and a failure complete concurrently.
+     */
+    @JCStressTest
+    @Description("PromiseCountdownHandler.handleSuccess racing handleFailure")
+    @Outcome(id = "0, 1, 1", expect = ACCEPTABLE, desc = "Failed once, carrying the failure.")
+    @Outcome(expect = FORBIDDEN, desc = "Succeeded, completed twice, or lost the failure.")
+    public static class SuccessAndFailure {
+        @Actor
+        public void success(Countdown countdown) {
+            countdown.handler.handleSuccess();
+        }
+
+        @Actor
+        public void failure(Countdown countdown) {
+            countdown.handler.handleFailure(countdown.failure1);
+        }
+
+        @Arbiter
+        public void arbiter(Countdown countdown, III_Result r) {
+            countdown.result(r);
+        }
+    }
+
+    /**
+     * Two failures complete concurrently.
+     */
+    @JCStressTest
+    @Description("PromiseCountdownHandler.handleFailure racing handleFailure")
+    @Outcome(id = "0, 1, 2", expect = ACCEPTABLE, desc = "Failed once, carrying both failures.")
+    @Outcome(expect = FORBIDDEN, desc = "Succeeded, completed twice, or lost a failure.")
+    public static class FailureAndFailure {
+        @Actor
+        public void failure1(Countdown countdown) {
+            countdown.handler.handleFailure(countdown.failure1);
+        }
+
+        @Actor
+        public void failure2(Countdown countdown) {
+            countdown.handler.handleFailure(countdown.failure2);
+        }
+
+        @Arbiter
+        public void arbiter(Countdown countdown, III_Result r) {
+            countdown.result(r);
+        }
+    }
+
+    /**
+     * Two successes complete concurrently.
+     */
+    @JCStressTest
+    @Description("PromiseCountdownHandler.handleSuccess racing handleSuccess")
+    @Outcome(id = "1, 0, 0", expect = ACCEPTABLE, desc = "Succeeded once.")
+    @Outcome(expect = FORBIDDEN, desc = "Failed, completed twice, or never completed.")
+    public static class SuccessAndSuccess {
+        @Actor
+        public void success1(Countdown countdown) {
+            countdown.handler.handleSuccess();
+        }
+
+        @Actor
+        public void success2(Countdown countdown) {
+            countdown.handler.handleSuccess();
+        }
+
+        @Arbiter
+        public void arbiter(Countdown countdown, III_Result r) {
+            countdown.result(r);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE_INTERESTING;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+/**
+ * Stress two deduplicated callers adding handlers to a PromiseMultiFuture while a third thread fails it.
+ *
+ * The contract is that every handler is called exactly once with the failure.  The handler list is an unsynchronized
+ * ArrayList, so lost or repeated calls and a ConcurrentModificationException from either side are currently possible;
+ * every outcome other than the contract is reported as interesting.  An exception thrown by an actor is recorded in
+ * the third result rather than failing the test.
+ *
+ * @since 0.13
+ */
+@JCStressTest
+@Description("PromiseMultiFuture.addHandler from two threads racing PromiseMultiFuture.setFailure")
+@Outcome(id = "1, 1, 0", expect = ACCEPTABLE, desc = "Each handler called once with the failure.")
+@Outcome(expect = ACCEPTABLE_INTERESTING, desc = "A handler was lost, called twice, saw no cause, or an actor threw.")
+@State
+public class PromiseMultiFutureStress {
+    private final Exception failure = new Exception("failed");
+    private final PromiseMultiFuture<String> future = new PromiseMultiFuture<>();
+    private final AtomicInteger first = new AtomicInteger();
+    private final AtomicInteger second = new AtomicInteger();
+    private final AtomicInteger errors = new AtomicInteger();
+
+    @Actor
+    public void addFirst() {
+        addHandler(first);
+    }
+
+    @Actor
+    public void addSecond() {
+        addHandler(second);
+    }
+
+    @Actor
+    public void setFailure() {
+        try {
+            future.setFailure(failure);
+        } catch (RuntimeException ex) {
+            errors.incrementAndGet();
+        }
+    }
+
+    @Arbiter
+    public void arbiter(III_Result r) {
+        r.r1 = first.get();
+        r.r2 = second.get();
+        r.r3 = errors.get();
+    }
+
+    private void addHandler(AtomicInteger calls) {
+        try {
+            future.addHandler(completed -> {
+                calls.incrementAndGet();
+                if (completed.cause() != failure) {
+                    errors.incrementAndGet();
+                }
+            });
+        } catch (RuntimeException ex) {
+            errors.incrementAndGet();
+        }
+    }
+}
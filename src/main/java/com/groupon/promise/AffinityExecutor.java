@@ -0,0 +1,131 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pins the execution of a promise chain to a single threaded executor such as an event loop.  Work submitted from a
+ * foreign thread is queued and drained in a batch by a single task on the event loop, while work submitted from the
+ * event loop itself is executed inline.  Since every continuation of the chain executes on the same thread the state
+ * of the chain does not need to be handed off between threads.
+ *
+ * @since 0.13
+ */
+public class AffinityExecutor implements Executor {
+    private static final Logger LOG = LoggerFactory.getLogger(AffinityExecutor.class);
+
+    private final Executor eventLoop;
+    private final BooleanSupplier inEventLoop;
+
+    private final ConcurrentLinkedQueue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private volatile Thread eventLoopThread;
+
+    /**
+     * Create an AffinityExecutor which detects the event loop thread the first time it drains pending work.  Until then
+     * no thread is known to be the event loop, so work submitted from the event loop itself is queued rather than
+     * executed inline.  Use {@link #AffinityExecutor(Executor, BooleanSupplier)} when the event loop can identify its
+     * own thread.
+     *
+     * @param eventLoop A single threaded executor
+     */
+    public AffinityExecutor(@Nonnull Executor eventLoop) {
+        this(eventLoop, null);
+    }
+
+    /**
+     * Create an AffinityExecutor using the supplied check to determine if the current thread is the event loop.
+     *
+     * @param eventLoop A single threaded executor
+     * @param inEventLoop Whether the current thread is the event loop, e.g. Netty's EventLoop::inEventLoop
+     */
+    public AffinityExecutor(@Nonnull Executor eventLoop, BooleanSupplier inEventLoop) {
+        if (eventLoop == null) {
+            throw new IllegalArgumentException("Event loop cannot be null");
+        }
+
+        this.eventLoop = eventLoop;
+        this.inEventLoop = inEventLoop;
+    }
+
+    /**
+     * Whether the current thread is the event loop this executor is pinned to.
+     *
+     * @return boolean Whether work can be executed inline
+     */
+    public boolean inEventLoop() {
+        if (inEventLoop != null) {
+            return inEventLoop.getAsBoolean();
+        }
+        return Thread.currentThread() == eventLoopThread;
+    }
+
+    /**
+     * Queue the task to be executed on the event loop.  Tasks queued before the event loop drains the queue are executed
+     * in a single batch.
+     *
+     * @param task The task to execute on the event loop
+     */
+    @Override
+    public void execute(@Nonnull Runnable task) {
+        pending.add(task);
+        if (scheduled.compareAndSet(false, true)) {
+            eventLoop.execute(this::drain);
+        }
+    }
+
+    /**
+     * Execute the task inline if on the event loop, otherwise queue it for the event loop.
+     *
+     * @param task The task to execute on the event loop
+     */
+    void run(Runnable task) {
+        if (inEventLoop()) {
+            task.run();
+        } else {
+            execute(task);
+        }
+    }
+
+    private void drain() {
+        eventLoopThread = Thread.currentThread();
+        try {
+            Runnable task;
+            while ((task = pending.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOG.error("affinityTaskFailed", e);
+                }
+            }
+        } finally {
+            // Reset the flag even when a task throws an Error, otherwise no drain would ever be scheduled again.  A task
+            // queued after the last poll, or left behind by the Error, is handed to a new drain.
+            scheduled.set(false);
+            if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+                eventLoop.execute(this::drain);
+            }
+        }
+    }
+}
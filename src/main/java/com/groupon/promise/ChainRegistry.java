@@ -0,0 +1,154 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+
+/**
+ * A registry of the root promises of chains which have been dispatched but not completed, used to find the chains
+ * which are stuck, for example because an asynchronous function never completed its future.  Roots are held by weak
+ * references, so a chain which can no longer complete is still collected and simply disappears from the registry.
+ * <br>
+ * Roots are registered automatically on fulfill or reject when the {@value #ENABLED_PROPERTY} system property is true,
+ * or explicitly with {@link #register(Promise)}.
+ *
+ * @since 0.13
+ */
+public final class ChainRegistry {
+    /**
+     * System property which, when true, registers the root of every chain with the global registry.
+     */
+    public static final String ENABLED_PROPERTY = "com.groupon.promise.registry";
+
+    static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    private static final ChainRegistry GLOBAL = new ChainRegistry();
+
+    private final ConcurrentMap<Long, Registration> chains = new ConcurrentHashMap<>();
+    private final ReferenceQueue<PromiseImpl<?>> collected = new ReferenceQueue<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    /**
+     * The registry used for automatic registration.
+     *
+     * @return The global registry
+     */
+    public static ChainRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Register the root of a chain until it completes.  The age of the chain is measured from registration.
+     *
+     * @param root The root of the chain
+     * @throws IllegalArgumentException if the promise is not a PromiseImpl
+     * @throws IllegalStateException if the promise has already been dispatched or registered
+     */
+    public void register(@Nonnull Promise<?> root) {
+        if (!(root instanceof PromiseImpl)) {
+            throw new IllegalArgumentException("Unsupported type: " + root.getClass());
+        }
+
+        PromiseImpl<?> impl = (PromiseImpl<?>) root;
+        if (impl.dispatched.get()) {
+            throw new IllegalStateException("Promise has already been dispatched.");
+        }
+        add(impl);
+    }
+
+    void add(PromiseImpl<?> root) {
+        expunge();
+        Registration registration = new Registration(this, root);
+        root.register(registration);
+        chains.put(registration.id, registration);
+    }
+
+    /**
+     * The number of registered chains which have not completed or been collected.
+     *
+     * @return The number of chains
+     */
+    public int size() {
+        expunge();
+        return chains.size();
+    }
+
+    /**
+     * Snapshot every registered chain.
+     *
+     * @return The snapshots, oldest first
+     */
+    public List<ChainSnapshot> snapshot() {
+        return pendingLongerThan(0L, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Snapshot the registered chains which have been pending for at least the threshold.
+     *
+     * @param threshold The minimum age
+     * @param unit The unit of the threshold
+     * @return The snapshots, oldest first
+     */
+    public List<ChainSnapshot> pendingLongerThan(long threshold, @Nonnull TimeUnit unit) {
+        expunge();
+        long now = System.nanoTime();
+        long thresholdNanos = unit.toNanos(threshold);
+        List<ChainSnapshot> snapshots = new ArrayList<>();
+        for (Registration registration : chains.values()) {
+            long ageNanos = now - registration.startNanos;
+            PromiseImpl<?> root = registration.get();
+            if (root != null && ageNanos >= thresholdNanos) {
+                snapshots.add(root.inspect(registration.id, ageNanos));
+            }
+        }
+        snapshots.sort((a, b) -> Long.compare(b.ageNanos(), a.ageNanos()));
+        return snapshots;
+    }
+
+    private void expunge() {
+        Registration registration;
+        while ((registration = (Registration) collected.poll()) != null) {
+            chains.remove(registration.id, registration);
+        }
+    }
+
+    /**
+     * The entry of a chain in the registry, removed once the root completes.
+     */
+    static final class Registration extends WeakReference<PromiseImpl<?>> {
+        private final ChainRegistry registry;
+        private final long id;
+        private final long startNanos = System.nanoTime();
+
+        Registration(ChainRegistry registry, PromiseImpl<?> root) {
+            super(root, registry.collected);
+            this.registry = registry;
+            this.id = registry.ids.incrementAndGet();
+        }
+
+        void complete() {
+            registry.chains.remove(id, this);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The state of a pending chain at the time it was inspected.  The promises of a chain are updated without locking, so
+ * the snapshot is a best effort view which may lag the threads completing the chain.  The chains of the elements of a
+ * mapped list are not linked from the root; they are reported through the countdown of the list and its pending map
+ * stage.
+ *
+ * @since 0.13
+ */
+public final class ChainSnapshot {
+    private final long id;
+    private final String name;
+    private final long ageNanos;
+    private final List<Node> nodes;
+    private final List<String> pendingFutureKeys;
+
+    ChainSnapshot(long id, String name, long ageNanos, List<Node> nodes, List<String> pendingFutureKeys) {
+        this.id = id;
+        this.name = name;
+        this.ageNanos = ageNanos;
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.pendingFutureKeys = Collections.unmodifiableList(pendingFutureKeys);
+    }
+
+    /**
+     * The identifier assigned to the chain by the registry.
+     *
+     * @return The identifier
+     */
+    public long id() {
+        return id;
+    }
+
+    /**
+     * The name of the root promise.
+     *
+     * @return The name, or the class of the root if it is not named
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * The time since the chain was registered.
+     *
+     * @return The age in nanoseconds
+     */
+    public long ageNanos() {
+        return ageNanos;
+    }
+
+    /**
+     * The completed promises which are still waiting for a stage or a child, in depth first order.
+     *
+     * @return The waiting promises
+     */
+    public List<Node> nodes() {
+        return nodes;
+    }
+
+    /**
+     * The names of the stages whose functions have not completed, across every waiting promise.
+     *
+     * @return The pending stages
+     */
+    public List<String> pendingStages() {
+        List<String> stages = new ArrayList<>();
+        for (Node node : nodes) {
+            stages.addAll(node.pendingStages());
+        }
+        return stages;
+    }
+
+    /**
+     * The deduplicated calls of the chain which have not completed, described by function class and parameter.
+     *
+     * @return The pending keys
+     */
+    public List<String> pendingFutureKeys() {
+        return pendingFutureKeys;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Chain ").append(id).append(' ').append(name)
+                .append(" pending for ").append(ageNanos / 1000000L).append("ms");
+        for (Node node : nodes) {
+            builder.append(System.lineSeparator());
+            for (int i = 0; i <= node.depth(); i++) {
+                builder.append("  ");
+            }
+            builder.append(node);
+        }
+        if (!pendingFutureKeys.isEmpty()) {
+            builder.append(System.lineSeparator()).append("  pending futures ").append(pendingFutureKeys);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A promise which has been fulfilled or rejected but is still waiting for its stages or children.
+     */
+    public static final class Node {
+        private final String promise;
+        private final int depth;
+        private final int countdown;
+        private final List<String> pendingStages;
+
+        Node(String promise, int depth, int countdown, List<String> pendingStages) {
+            this.promise = promise;
+            this.depth = depth;
+            this.countdown = countdown;
+            this.pendingStages = Collections.unmodifiableList(pendingStages);
+        }
+
+        /**
+         * The name of the promise.
+         *
+         * @return The name, or the class of the promise if it is not named
+         */
+        public String promise() {
+            return promise;
+        }
+
+        /**
+         * The distance of the promise from the root.
+         *
+         * @return The depth, 0 for the root
+         */
+        public int depth() {
+            return depth;
+        }
+
+        /**
+         * The current value of the countdown latch, the number of children which have not completed.
+         *
+         * @return The countdown
+         */
+        public int countdown() {
+            return countdown;
+        }
+
+        /**
+         * The names of the stages chained to this promise whose functions have not completed.
+         *
+         * @return The pending stages
+         */
+        public List<String> pendingStages() {
+            return pendingStages;
+        }
+
+        @Override
+        public String toString() {
+            return promise + " countdown " + countdown + (pendingStages.isEmpty() ? "" : " waiting on " + pendingStages);
+        }
+    }
+}
@@ -23,4 +23,16 @@ package com.groupon.promise;
  */
 public interface ComparablePromiseFunction {
     boolean equivalent(Object o);
+
+    /**
+     * A hash code consistent with {@link #equivalent(Object)}: functions which are equivalent must return the same
+     * value.  It is combined with the hash code of the parameter to key deduplicated calls, and is read once per call,
+     * so functions with an expensive notion of equivalence should precompute it.
+     *
+     * @return The hash code, by default the hash code of the function class
+     * @since 0.13
+     */
+    default int equivalenceHash() {
+        return getClass().hashCode();
+    }
 }
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+/**
+ * An immutable future completed at construction.  The handler is called immediately and never retained.
+ *
+ * @since 0.13
+ */
+final class CompletedPromiseFuture<T> implements PromiseFuture<T> {
+    private final T result;
+    private final Throwable throwable;
+
+    CompletedPromiseFuture(T result, Throwable throwable) {
+        this.result = result;
+        this.throwable = throwable;
+    }
+
+    @Override
+    public T result() {
+        return result;
+    }
+
+    @Override
+    public Throwable cause() {
+        return throwable;
+    }
+
+    @Override
+    public boolean succeeded() {
+        return throwable == null;
+    }
+
+    @Override
+    public boolean failed() {
+        return throwable != null;
+    }
+
+    @Override
+    public boolean complete() {
+        return true;
+    }
+
+    @Override
+    public PromiseFuture<T> setHandler(PromiseHandler<PromiseFuture<T>> aHandler) {
+        if (aHandler != null) {
+            aHandler.handle(this);
+        }
+        return this;
+    }
+
+    @Override
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public PromiseFuture<T> setResult(T result) {
+        return this;
+    }
+
+    @Override
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public PromiseFuture<T> setFailure(Throwable throwable) {
+        return this;
+    }
+}
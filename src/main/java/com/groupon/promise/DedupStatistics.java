@@ -0,0 +1,276 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+
+/**
+ * How effective deduplication is for a class of {@link ComparablePromiseFunction}.  Every call of a nonduplicating
+ * stage is a lookup in the pending futures of its chain: a hit joins an equivalent pending call, a miss dispatches the
+ * function.  Statistics are collected when the {@value #ENABLED_PROPERTY} system property is true.
+ * <br>
+ * When the {@value #ADAPTIVE_PROPERTY} system property is true the statistics also drive an adaptive policy: once a
+ * class has been looked up {@value #DEFAULT_MIN_LOOKUPS} times (see {@value #MIN_LOOKUPS_PROPERTY}) with a hit rate
+ * below 1% (see {@value #MIN_HIT_RATE_PROPERTY}) its calls skip deduplication, saving the key allocation and map
+ * update.  After {@value #REPROBE_FACTOR} times as many skipped calls deduplication is attempted again, so a class
+ * whose calls start to overlap is picked up.
+ *
+ * @since 0.13
+ */
+public final class DedupStatistics {
+    /**
+     * System property which, when true, collects statistics for every nonduplicating stage.
+     */
+    public static final String ENABLED_PROPERTY = "com.groupon.promise.dedup.statistics";
+
+    /**
+     * System property which, when true, stops deduplicating function classes which rarely hit.  Implies statistics.
+     */
+    public static final String ADAPTIVE_PROPERTY = "com.groupon.promise.dedup.adaptive";
+
+    /**
+     * System property for the number of lookups before the adaptive policy judges a function class.
+     */
+    public static final String MIN_LOOKUPS_PROPERTY = "com.groupon.promise.dedup.adaptive.minLookups";
+
+    /**
+     * System property for the hit rate below which the adaptive policy stops deduplicating a function class.
+     */
+    public static final String MIN_HIT_RATE_PROPERTY = "com.groupon.promise.dedup.adaptive.minHitRate";
+
+    static final boolean ADAPTIVE = Boolean.getBoolean(ADAPTIVE_PROPERTY);
+
+    private static boolean enabled = ADAPTIVE || Boolean.getBoolean(ENABLED_PROPERTY);
+
+    private static final int DEFAULT_MIN_LOOKUPS = 1000;
+    private static final int REPROBE_FACTOR = 100;
+    private static final long MIN_LOOKUPS = Long.getLong(MIN_LOOKUPS_PROPERTY, DEFAULT_MIN_LOOKUPS);
+    private static final double MIN_HIT_RATE = Double.parseDouble(System.getProperty(MIN_HIT_RATE_PROPERTY, "0.01"));
+
+    // The statistics live only in the ClassValue, and the classes are only weakly held for all(), so collecting
+    // statistics never keeps a class loader alive.
+    private static final Map<Class<?>, Boolean> CLASSES = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final ClassValue<DedupStatistics> BY_CLASS = new ClassValue<DedupStatistics>() {
+        @Override
+        protected DedupStatistics computeValue(Class<?> type) {
+            CLASSES.put(type, Boolean.TRUE);
+            return new DedupStatistics(type, ADAPTIVE, MIN_LOOKUPS, MIN_HIT_RATE);
+        }
+    };
+
+    private final Class<?> functionClass;
+    private final boolean adaptive;
+    private final long minLookups;
+    private final double minHitRate;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final AtomicLong maxWaiters = new AtomicLong();
+
+    private final AtomicLong windowLookups = new AtomicLong();
+    private final LongAdder windowHits = new LongAdder();
+    private final AtomicLong windowSkipped = new AtomicLong();
+    private volatile boolean disabled;
+
+    @SuppressWarnings("checkstyle:hiddenfield")
+    DedupStatistics(Class<?> functionClass, boolean adaptive, long minLookups, double minHitRate) {
+        this.functionClass = functionClass;
+        this.adaptive = adaptive;
+        this.minLookups = minLookups;
+        this.minHitRate = minHitRate;
+    }
+
+    /**
+     * The statistics of a function class, created on first use.
+     *
+     * @param functionClass The class of the function
+     * @return The statistics
+     */
+    public static DedupStatistics of(@Nonnull Class<?> functionClass) {
+        return BY_CLASS.get(functionClass);
+    }
+
+    /**
+     * The statistics of every function class looked up so far.
+     *
+     * @return The statistics by class name
+     */
+    public static Map<String, DedupStatistics> all() {
+        List<Class<?>> classes;
+        synchronized (CLASSES) {
+            classes = new ArrayList<>(CLASSES.keySet());
+        }
+        Map<String, DedupStatistics> all = new TreeMap<>();
+        for (Class<?> type : classes) {
+            all.put(type.getName(), BY_CLASS.get(type));
+        }
+        return all;
+    }
+
+    /**
+     * Whether statistics are collected by every chain.
+     */
+    static boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Start or stop collecting statistics, so tests can collect them without the system property.  Chains in flight
+     * may or may not record their lookups.
+     *
+     * @return Whether statistics were collected before
+     */
+    static boolean enable(boolean value) {
+        boolean previous = enabled;
+        enabled = value;
+        return previous;
+    }
+
+    /**
+     * Whether the next call should be deduplicated.  Always true unless the adaptive policy disabled the class.
+     */
+    boolean attempt() {
+        if (!disabled) {
+            return true;
+        }
+
+        skipped.increment();
+        if (windowSkipped.incrementAndGet() >= minLookups * REPROBE_FACTOR) {
+            windowLookups.set(0L);
+            windowHits.reset();
+            windowSkipped.set(0L);
+            disabled = false;
+        }
+        return false;
+    }
+
+    /**
+     * Record a lookup.  On a hit the waiters are the callers sharing the pending future, including this one.
+     */
+    void record(boolean hit, int waiters) {
+        lookups.increment();
+        if (hit) {
+            hits.increment();
+            windowHits.increment();
+            maxWaiters.accumulateAndGet(waiters, Math::max);
+        } else {
+            maxWaiters.accumulateAndGet(1L, Math::max);
+        }
+
+        if (adaptive && windowLookups.incrementAndGet() == minLookups && windowHits.sum() < minHitRate * minLookups) {
+            windowSkipped.set(0L);
+            disabled = true;
+        }
+    }
+
+    /**
+     * The class of the function.
+     *
+     * @return The function class
+     */
+    public Class<?> functionClass() {
+        return functionClass;
+    }
+
+    /**
+     * The number of calls looked up in the pending futures.
+     *
+     * @return The lookups
+     */
+    public long lookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * The number of calls which joined an equivalent pending call instead of calling the function.
+     *
+     * @return The hits
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * The number of calls which called the function, each creating a shared future.
+     *
+     * @return The misses
+     */
+    public long misses() {
+        return lookups() - hits();
+    }
+
+    /**
+     * The fraction of lookups which hit.
+     *
+     * @return The hit rate, or 0 without lookups
+     */
+    public double hitRate() {
+        long total = lookups();
+        return total == 0 ? 0.0 : (double) hits() / total;
+    }
+
+    /**
+     * The average number of callers sharing each dispatched call.
+     *
+     * @return The average waiters per shared future, or 0 without misses
+     */
+    public double averageWaiters() {
+        long shared = misses();
+        return shared == 0 ? 0.0 : (double) lookups() / shared;
+    }
+
+    /**
+     * The largest number of callers seen sharing a single dispatched call.
+     *
+     * @return The maximum waiters per shared future
+     */
+    public long maxWaiters() {
+        return maxWaiters.get();
+    }
+
+    /**
+     * The number of calls which skipped deduplication because the adaptive policy disabled the class.
+     *
+     * @return The skipped calls
+     */
+    public long skipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * Whether the adaptive policy is currently skipping deduplication for the class.
+     *
+     * @return True if disabled
+     */
+    public boolean disabled() {
+        return disabled;
+    }
+
+    @Override
+    public String toString() {
+        return functionClass.getName() + " lookups=" + lookups() + " hits=" + hits() + " skipped=" + skipped()
+                + " maxWaiters=" + maxWaiters() + (disabled ? " disabled" : "");
+    }
+}
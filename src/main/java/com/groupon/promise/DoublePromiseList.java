@@ -0,0 +1,104 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.DoubleBinaryOperator;
+import javax.annotation.Nonnull;
+
+/**
+ * A Promise for a list of primitive doubles backed by a double array.  The map and fold operations work directly on
+ * the array, so no element of the list is ever boxed.
+ *
+ * @since 0.13
+ */
+public class DoublePromiseList extends PromiseImpl<double[]> {
+    public DoublePromiseList() {
+        super();
+    }
+
+    protected DoublePromiseList(AtomicBoolean promiseDispatched, ConcurrentMap<PromiseFunctionKey<?>, PromiseMultiFuture<?>> pendingFutures,
+                                AffinityExecutor affinity) {
+        super(promiseDispatched, pendingFutures, affinity);
+    }
+
+    /**
+     * Create a new DoublePromiseList which is fulfilled with the result of applying the function to each element.
+     *
+     * @param onFulfilled Function applied to each element in the list.
+     * @return A DoublePromiseList that will act on the mapped values
+     */
+    public DoublePromiseList mapDouble(@Nonnull DoubleSyncPromiseFunction onFulfilled) {
+        if (onFulfilled == null) {
+            throw new IllegalArgumentException("onFulfilled cannot be null");
+        }
+
+        return internalThenSync(new DoublePromiseList(dispatched, pendingFutures, affinity), data -> {
+            if (data == null) {
+                return null;
+            }
+
+            double[] result = new double[data.length];
+            for (int i = 0; i < data.length; i++) {
+                result[i] = onFulfilled.handle(data[i]);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Create a new Promise which is fulfilled with the fold of the elements in the list.  The elements are folded
+     * without boxing; only the result is boxed.
+     *
+     * @param identity The initial value of the fold.
+     * @param operator Folds an element into the running result.
+     * @return A Promise that will act on the folded value
+     */
+    public Promise<Double> fold(double identity, @Nonnull DoubleBinaryOperator operator) {
+        if (operator == null) {
+            throw new IllegalArgumentException("Operator cannot be null");
+        }
+
+        return internalThenSync(new PromiseImpl<Double>(dispatched, pendingFutures, affinity), data -> {
+            double result = identity;
+            if (data != null) {
+                for (double element : data) {
+                    result = operator.applyAsDouble(result, element);
+                }
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public DoublePromiseList optional(boolean value) {
+        super.optional(value);
+        return this;
+    }
+
+    @Override
+    public DoublePromiseList nonduplicating(boolean value) {
+        super.nonduplicating(value);
+        return this;
+    }
+
+    @Override
+    public DoublePromiseList name(String value) {
+        super.name(value);
+        return this;
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * Accumulates values delivered from any number of threads without contention.  Each thread folds values into its own
+ * partial container, the partial containers are merged by the collector's combiner when the result is requested.
+ *
+ * The caller is responsible for establishing a happens-before edge between the last call to accumulate and the call
+ * to finish, for example by counting down a shared latch after accumulating.
+ *
+ * @since 0.13
+ */
+class PartialAccumulator<T, A, R> {
+    private final Supplier<A> supplier;
+    private final BiConsumer<A, ? super T> accumulator;
+    private final BinaryOperator<A> combiner;
+    private final Function<A, R> finisher;
+
+    private final ConcurrentMap<Thread, A> partials = new ConcurrentHashMap<>();
+
+    PartialAccumulator(Collector<? super T, A, R> collector) {
+        this.supplier = collector.supplier();
+        this.accumulator = collector.accumulator();
+        this.combiner = collector.combiner();
+        this.finisher = collector.finisher();
+    }
+
+    void accumulate(T value) {
+        Thread thread = Thread.currentThread();
+        A partial = partials.get(thread);
+        if (partial == null) {
+            partial = supplier.get();
+            partials.put(thread, partial);
+        }
+        accumulator.accept(partial, value);
+    }
+
+    R finish() {
+        A result = null;
+        for (A partial : partials.values()) {
+            result = result == null ? partial : combiner.apply(result, partial);
+        }
+        return finisher.apply(result != null ? result : supplier.get());
+    }
+}
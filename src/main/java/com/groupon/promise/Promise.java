@@ -91,6 +91,16 @@ public interface Promise<T> {
      */
     boolean nonduplicating();
 
+    /**
+     * The name of the stage which fulfills this Promise, used when recording metrics.
+     *
+     * @return - The name of this promise, or null if not named
+     * @since 0.13
+     */
+    default String name() {
+        return null;
+    }
+
     /**
      * The value fulfilled by this Promise.
      *
@@ -264,6 +274,18 @@ public interface Promise<T> {
      */
     Promise<T> nonduplicating(boolean nonduplicating);
 
+    /**
+     * Name the stage which fulfills this Promise.  Metrics for the stage are recorded under this name instead of the
+     * class of its function.
+     *
+     * @param name - The name of the stage.
+     * @return - The current Promise
+     * @since 0.13
+     */
+    default Promise<T> name(String name) {
+        return this;
+    }
+
     /**
      * Return a Promise which will be executed when the current Promise and all of it's children are
      * fulfilled.  Multiple calls to this method will always return a reference to the same Promise.
@@ -15,14 +15,12 @@
  */
 package com.groupon.promise;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.groupon.promise.exception.PromiseException;
+import com.groupon.promise.exception.FailureCollector;
 
 /**
  * This handler tracks the number of pending promises to be executed.  When all promises have been completed it will
@@ -37,7 +35,8 @@ class PromiseCountdownHandler {
     private AtomicInteger latch;
     private PromiseHandler<Void> handleSuccess;
     private PromiseHandler<Throwable> handleFailure;
-    private List<Throwable> failures = new ArrayList<>();
+    private FailureCollector failures;
+    private PromiseCountdownEvent event;
 
     PromiseCountdownHandler(AtomicInteger count, PromiseHandler<Void> handleSuccess, PromiseHandler<Throwable> handleFailure) {
         latch = count;
@@ -45,17 +44,25 @@ class PromiseCountdownHandler {
         this.handleFailure = handleFailure;
     }
 
+    /**
+     * Record a flight recorder event for the countdown of the promise, when enabled.  Must be called before the
+     * countdown is shared.
+     */
+    void recordCompletion(PromiseImpl<?> promise) {
+        event = PromiseEvents.beginCountdown(promise);
+    }
+
     public void handleSuccess() {
         int latchValue = latch.decrementAndGet();
         if (latchValue == 0) {
-            if (failures.isEmpty()) {
+            FailureCollector completedFailures = failures();
+            if (event != null) {
+                event.record(completedFailures == null);
+            }
+            if (completedFailures == null) {
                 handleSuccess.handle(null);
             } else {
-                Exception e = new PromiseException();
-                for (Throwable failure : failures) {
-                    addSuppressed(e, failure);
-                }
-                handleFailure.handle(e);
+                handleFailure.handle(completedFailures.toException());
             }
         } else if (latchValue == -1) {
             // Anything below negative one would be a duplicate of this message so stop logging.
@@ -64,28 +71,29 @@ class PromiseCountdownHandler {
     }
 
     public void handleFailure(Throwable throwable) {
+        // Record the failure before counting down so the last handler to complete always sees it.
+        FailureCollector collector;
+        synchronized (this) {
+            if (failures == null) {
+                failures = new FailureCollector();
+            }
+            collector = failures;
+        }
+        collector.add(throwable);
         int latchValue = latch.decrementAndGet();
-        failures.add(throwable);
 
         if (latchValue == 0) {
-            Exception e = new PromiseException();
-            for (Throwable failure : failures) {
-                addSuppressed(e, failure);
+            if (event != null) {
+                event.record(false);
             }
-            handleFailure.handle(e);
+            handleFailure.handle(failures().toException());
         } else if (latchValue == -1) {
             // Anything below negative one would be a duplicate of this message so stop logging.
             LOG.error("executedTooManyTimes", new Exception("Exceeded countdown"));
         }
     }
 
-    private void addSuppressed(Exception e, Throwable failure) {
-        if (!(failure instanceof PromiseException)) {
-            e.addSuppressed(failure);
-        } else if (failure.getSuppressed() != null) {
-            for (Throwable nestedFailure : failure.getSuppressed()) {
-                addSuppressed(e, nestedFailure);
-            }
-        }
+    private synchronized FailureCollector failures() {
+        return failures;
     }
 }
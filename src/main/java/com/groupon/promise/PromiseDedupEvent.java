@@ -0,0 +1,53 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for the lookup of a nonduplicating stage in the pending futures of the chain.
+ *
+ * @since 0.13
+ */
+@Name("com.groupon.promise.Dedup")
+@Label("Promise Dedup")
+@Category("Promise")
+@Description("A nonduplicating stage looked up in the pending futures of the chain")
+@Enabled(false)
+@StackTrace(false)
+final class PromiseDedupEvent extends jdk.jfr.Event {
+    @Label("Chain Id")
+    long chainId;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Coalesced")
+    @Description("Whether the stage joined an equivalent pending call instead of calling the function")
+    boolean coalesced;
+
+    void record(long chain, String name, boolean hit) {
+        chainId = chain;
+        stage = name;
+        coalesced = hit;
+        commit();
+    }
+}
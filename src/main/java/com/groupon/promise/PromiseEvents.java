@@ -0,0 +1,88 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+
+/**
+ * The flight recorder events of a promise chain.  Every event is disabled by default and is enabled by a recording
+ * setting, for example {@code -XX:StartFlightRecording:settings=promise.jfc} with {@code com.groupon.promise.Stage}
+ * enabled.  While an event is not enabled its begin method returns null without allocating, so the chain pays a
+ * single check per dispatch, stage or countdown.
+ * <br>
+ * Events are tagged with the chain id, the identity hash of the state shared by every promise in a chain including
+ * the copies created by map.
+ *
+ * @since 0.13
+ */
+final class PromiseEvents {
+    private static final EventType DISPATCH = eventType(PromiseDispatchEvent.class);
+    private static final EventType STAGE = eventType(PromiseStageEvent.class);
+    private static final EventType DEDUP = eventType(PromiseDedupEvent.class);
+    private static final EventType COUNTDOWN = eventType(PromiseCountdownEvent.class);
+    private static final EventType MAP_ELEMENT = eventType(PromiseMapElementEvent.class);
+
+    private PromiseEvents() {
+    }
+
+    static PromiseDispatchEvent beginDispatch() {
+        return enabled(DISPATCH) ? begin(new PromiseDispatchEvent()) : null;
+    }
+
+    static PromiseStageEvent beginStage() {
+        return enabled(STAGE) ? begin(new PromiseStageEvent()) : null;
+    }
+
+    static PromiseDedupEvent beginDedup() {
+        return enabled(DEDUP) ? begin(new PromiseDedupEvent()) : null;
+    }
+
+    static PromiseCountdownEvent beginCountdown(PromiseImpl<?> promise) {
+        if (!enabled(COUNTDOWN)) {
+            return null;
+        }
+
+        PromiseCountdownEvent event = begin(new PromiseCountdownEvent());
+        event.chainId = promise.chainId();
+        event.promise = PromiseImpl.promiseName(promise);
+        return event;
+    }
+
+    static PromiseMapElementEvent beginMapElement() {
+        return enabled(MAP_ELEMENT) ? begin(new PromiseMapElementEvent()) : null;
+    }
+
+    private static <E extends Event> E begin(E event) {
+        event.begin();
+        return event;
+    }
+
+    private static boolean enabled(EventType type) {
+        return type != null && type.isEnabled();
+    }
+
+    /**
+     * Register the event, or return null when the flight recorder is not available.
+     */
+    private static EventType eventType(Class<? extends Event> eventClass) {
+        try {
+            return EventType.getEventType(eventClass);
+        } catch (LinkageError | IllegalStateException | SecurityException e) {
+            return null;
+        }
+    }
+}
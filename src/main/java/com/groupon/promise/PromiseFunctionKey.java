@@ -19,18 +19,59 @@ import java.util.Objects;
 import javax.annotation.Nonnull;
 
 /**
- * Represents a unique combination of PromiseFunction and value.
+ * Represents a unique combination of PromiseFunction and value.  The hash code is computed once, and a lookup of an
+ * existing key can use the reusable {@link #probe(ComparablePromiseFunction, Object)} of the calling thread instead of
+ * allocating a new key.
  *
  * @author Stuart Siegrist (fsiegrist at groupon dot com)
  * @since 0.1
  */
 class PromiseFunctionKey<T> {
+    private static final ThreadLocal<PromiseFunctionKey<Object>> PROBE =
+            ThreadLocal.withInitial(() -> new PromiseFunctionKey<>(null, null, 0));
+
     private ComparablePromiseFunction promiseFunction;
     private T parameter;
+    private int hash;
 
     PromiseFunctionKey(@Nonnull ComparablePromiseFunction promiseFunction, T parameter) {
+        this(promiseFunction, parameter, hash(promiseFunction, parameter));
+    }
+
+    private PromiseFunctionKey(ComparablePromiseFunction promiseFunction, T parameter, int hash) {
         this.promiseFunction = promiseFunction;
         this.parameter = parameter;
+        this.hash = hash;
+    }
+
+    /**
+     * The key of the calling thread used to look up an existing key without allocating.  It must only be used for
+     * lookups, never stored, and should be cleared afterwards so it does not retain the parameter.
+     */
+    static PromiseFunctionKey<Object> probe(@Nonnull ComparablePromiseFunction promiseFunction, Object parameter) {
+        PromiseFunctionKey<Object> probe = PROBE.get();
+        probe.promiseFunction = promiseFunction;
+        probe.parameter = parameter;
+        probe.hash = hash(promiseFunction, parameter);
+        return probe;
+    }
+
+    /**
+     * Create a key to store from this probe, reusing the hash code, and clear the probe.
+     */
+    PromiseFunctionKey<T> toKey() {
+        PromiseFunctionKey<T> key = new PromiseFunctionKey<>(promiseFunction, parameter, hash);
+        clear();
+        return key;
+    }
+
+    void clear() {
+        promiseFunction = null;
+        parameter = null;
+    }
+
+    private static int hash(ComparablePromiseFunction promiseFunction, Object parameter) {
+        return 31 * promiseFunction.equivalenceHash() + Objects.hashCode(parameter);
     }
 
     @Override
@@ -43,11 +84,17 @@ class PromiseFunctionKey<T> {
 
         PromiseFunctionKey<?> that = (PromiseFunctionKey<?>) o;
 
-        return Objects.equals(parameter, that.parameter) && promiseFunction.equivalent(that.promiseFunction);
+        return hash == that.hash && Objects.equals(parameter, that.parameter)
+                && (promiseFunction == that.promiseFunction || promiseFunction.equivalent(that.promiseFunction));
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(promiseFunction.getClass(), parameter);
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return promiseFunction.getClass().getName() + "(" + parameter + ")";
     }
 }
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+/**
+ * Shared, immutable futures for values which are already known.  A completed future ignores any further calls to
+ * setResult or setFailure and calls a handler as soon as it is set, so the same instance can safely be returned to
+ * many callers.
+ *
+ * @since 0.13
+ */
+public final class PromiseFutures {
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 127;
+
+    private static final PromiseFuture<?> NULL = new CompletedPromiseFuture<>(null, null);
+    public static final PromiseFuture<Void> VOID = nullFuture();
+    public static final PromiseFuture<Boolean> TRUE = new CompletedPromiseFuture<>(Boolean.TRUE, null);
+    public static final PromiseFuture<Boolean> FALSE = new CompletedPromiseFuture<>(Boolean.FALSE, null);
+
+    private static final PromiseFuture<?>[] INTEGERS = new PromiseFuture<?>[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < INTEGERS.length; i++) {
+            INTEGERS[i] = new CompletedPromiseFuture<>(i + CACHE_LOW, null);
+        }
+    }
+
+    private PromiseFutures() {
+    }
+
+    /**
+     * A completed future with a null result.
+     *
+     * @return The shared null future
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PromiseFuture<T> nullFuture() {
+        return (PromiseFuture<T>) NULL;
+    }
+
+    /**
+     * A completed future for the integer, shared for values between -128 and 127.
+     *
+     * @param value The result of the future
+     * @return A completed future
+     */
+    @SuppressWarnings("unchecked")
+    public static PromiseFuture<Integer> completed(int value) {
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return (PromiseFuture<Integer>) INTEGERS[value - CACHE_LOW];
+        }
+        return new CompletedPromiseFuture<>(value, null);
+    }
+
+    /**
+     * A completed future for the value.  Null, booleans and small integers return a shared instance.
+     *
+     * @param value The result of the future
+     * @return A completed future
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PromiseFuture<T> completed(T value) {
+        if (value == null) {
+            return nullFuture();
+        } else if (value instanceof Boolean) {
+            return (PromiseFuture<T>) ((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer) {
+            int intValue = (Integer) value;
+            if (intValue >= CACHE_LOW && intValue <= CACHE_HIGH) {
+                return (PromiseFuture<T>) INTEGERS[intValue - CACHE_LOW];
+            }
+        }
+        return new CompletedPromiseFuture<>(value, null);
+    }
+
+    /**
+     * A completed future which failed with the throwable.
+     *
+     * @param throwable The cause of the failure
+     * @return A failed future
+     */
+    public static <T> PromiseFuture<T> failed(Throwable throwable) {
+        if (throwable == null) {
+            throw new IllegalArgumentException("Throwable cannot be null");
+        }
+        return new CompletedPromiseFuture<>(null, throwable);
+    }
+}
@@ -15,18 +15,23 @@
  */
 package com.groupon.promise;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nonnull;
 
+import com.groupon.promise.exception.PromiseException;
 import com.groupon.promise.function.FulfillPromiseFunction;
 import com.groupon.promise.function.PromiseFunctionResult;
 import com.groupon.promise.function.PromiseListFunctionResult;
 import com.groupon.promise.function.RejectPromiseFunction;
+import com.groupon.promise.metrics.PromiseMetrics;
 
 /**
  * This fulfills the contract required by the Promise interface.
@@ -35,82 +40,113 @@ import com.groupon.promise.function.RejectPromiseFunction;
  * @since 0.1
  */
 public class PromiseImpl<T> implements Promise<T> {
-    private List<PromiseHandler<T>> performOnFulfilled = new ArrayList<>();
-    private List<PromiseHandler<Throwable>> performOnRejected = new ArrayList<>();
+    private static final PromiseMetrics METRICS = PromiseMetrics.installed();
+
+    // Most promises are leaves or have a single child, so the first child is held inline and the array is only
+    // allocated by the second then.  Each tuple is dispatched directly on the outcome of this promise.
+    private PromiseTuple<T, ?> firstChild;
+    private PromiseTuple<T, ?>[] children;
+    private int childrenSize;
     private volatile PromiseImpl<Void> performAfter;
 
-    private OptionalFuture<Void> resultFuture = new OptionalFuture<>();
+    // Only allocated when the promise does not complete before internalFulfill/internalReject returns.
+    private PromiseFuture<Void> resultFuture;
 
-    protected List<PromiseTuple<T, ?>> children = new ArrayList<>();
+    protected ConcurrentMap<PromiseFunctionKey<?>, PromiseMultiFuture<?>> pendingFutures;
+    protected AtomicBoolean dispatched;
+    protected AffinityExecutor affinity;
 
-    protected ConcurrentMap<PromiseFunctionKey<?>, PromiseMultiFuture<?>> pendingFutures = new ConcurrentHashMap<>();
-    protected AtomicBoolean dispatched = new AtomicBoolean(false);
-    protected AtomicInteger countdown = new AtomicInteger(1);
-    protected PromiseCountdownHandler countdownHandler;
+    // Only allocated for promises with children, or leaves which are rejected.  The countdown is published by the
+    // volatile write of the handler.
+    private AtomicInteger countdown;
+    private volatile PromiseCountdownHandler countdownHandler;
 
     private boolean fulfilled = false;
     private boolean rejected = false;
     private boolean optional = false;
     private boolean nonduplicating = true;
+    private boolean optionalResult = false;
 
     private T value;
     private Throwable reason;
 
-    public PromiseImpl() {
-        PromiseHandler<Void> countdownSuccess = result -> {
-            if (performAfter != null) {
-                final PromiseFuture<Void> afterFuture = performAfter.internalFulfill(null);
-                afterFuture.setHandler(event -> {
-                    if (afterFuture.succeeded()) {
-                        resultFuture.setResult(event.result());
-                    } else {
-                        resultFuture.setFailure(afterFuture.cause());
-                    }
-                });
-            } else {
-                resultFuture.setResult(null);
-            }
-        };
+    private String name;
+    private long readyNanos;
+    private TraceSpan span;
+    private ChainRegistry.Registration registration;
 
-        PromiseHandler<Throwable> countdownFailure = result -> {
-            if (performAfter != null) {
-                final PromiseFuture<Void> afterFuture;
-                if (optional) {
-                    afterFuture = performAfter.internalFulfill(null);
-                } else {
-                    afterFuture = performAfter.internalReject(result);
-                }
-                afterFuture.setHandler(event -> {
-                    if (afterFuture.failed()) {
-                        result.addSuppressed(afterFuture.cause());
-                    }
-                    resultFuture.setFailure(result);
-                });
-            } else {
-                resultFuture.setFailure(result);
-            }
-        };
+    private Runnable onStageComplete;
+    private AtomicInteger stageCountdown;
+    private PromiseHandler<PromiseFuture<Void>> childCompleted;
+
+    public PromiseImpl() {
+        this(new DispatchState(), ShardedConcurrentMap.pendingFutures(), null, false, true);
+    }
 
-        countdownHandler = new PromiseCountdownHandler(countdown, countdownSuccess, countdownFailure);
+    /**
+     * Create a Promise chain which executes every continuation on the specified single threaded executor.  Futures
+     * completed from any other thread are handed back to the executor before the chain continues.  Pass an
+     * {@link AffinityExecutor} with an event loop check to run work submitted from the event loop inline before the
+     * executor has first drained.
+     *
+     * @param eventLoop A single threaded executor, or an {@link AffinityExecutor} wrapping one
+     */
+    public PromiseImpl(@Nonnull Executor eventLoop) {
+        this(new DispatchState(), ShardedConcurrentMap.pendingFutures(), toAffinityExecutor(eventLoop), false, true);
     }
 
     protected PromiseImpl(
             AtomicBoolean promiseDispatched,
             ConcurrentMap<PromiseFunctionKey<?>, PromiseMultiFuture<?>> pendingFutures) {
-        this(promiseDispatched, pendingFutures, false, true);
+        this(promiseDispatched, pendingFutures, null);
+    }
+
+    protected PromiseImpl(
+            AtomicBoolean promiseDispatched,
+            ConcurrentMap<PromiseFunctionKey<?>, PromiseMultiFuture<?>> pendingFutures,
+            AffinityExecutor affinity) {
+        this(promiseDispatched, pendingFutures, affinity, false, true);
     }
 
     protected PromiseImpl(
             AtomicBoolean promiseDispatched,
             ConcurrentMap<PromiseFunctionKey<?>, PromiseMultiFuture<?>> pendingFutures,
             boolean optional, boolean nonduplicating) {
-        this();
+        this(promiseDispatched, pendingFutures, null, optional, nonduplicating);
+    }
+
+    protected PromiseImpl(
+            AtomicBoolean promiseDispatched,
+            ConcurrentMap<PromiseFunctionKey<?>, PromiseMultiFuture<?>> pendingFutures,
+            AffinityExecutor affinity, boolean optional, boolean nonduplicating) {
         this.dispatched = promiseDispatched;
         this.pendingFutures = pendingFutures;
+        this.affinity = affinity;
         this.optional = optional;
         this.nonduplicating = nonduplicating;
     }
 
+    @SuppressWarnings("unchecked")
+    static <T, O> AsyncPromiseFunction<T, O> toAsyncFunction(PromiseFunction<T, O> function) {
+        if (function instanceof AsyncPromiseFunction) {
+            return (AsyncPromiseFunction<T, O>) function;
+        } else if (function instanceof SyncPromiseFunction) {
+            return new PromiseFunctionResult<>((SyncPromiseFunction<T, O>) function);
+        } else {
+            throw new IllegalArgumentException("Unsupported type: " + function.getClass());
+        }
+    }
+
+    static AffinityExecutor toAffinityExecutor(Executor eventLoop) {
+        if (eventLoop == null) {
+            throw new IllegalArgumentException("Event loop cannot be null");
+        } else if (eventLoop instanceof AffinityExecutor) {
+            return (AffinityExecutor) eventLoop;
+        } else {
+            return new AffinityExecutor(eventLoop);
+        }
+    }
+
     @Override
     public boolean fulfilled() {
         return fulfilled;
@@ -136,6 +172,11 @@ public class PromiseImpl<T> implements Promise<T> {
         return nonduplicating;
     }
 
+    @Override
+    public String name() {
+        return name;
+    }
+
     @Override
     public T value() {
         return value;
@@ -354,12 +395,19 @@ public class PromiseImpl<T> implements Promise<T> {
         return this;
     }
 
+    @Override
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public Promise<T> name(String name) {
+        this.name = name;
+        return this;
+    }
+
     @Override
     public Promise<Void> after() {
         if (performAfter == null) {
             synchronized (this) {
                 if (performAfter == null) {
-                    performAfter = new PromiseImpl<>(dispatched, pendingFutures);
+                    performAfter = new PromiseImpl<>(dispatched, pendingFutures, affinity);
                 }
             }
         }
@@ -369,7 +417,14 @@ public class PromiseImpl<T> implements Promise<T> {
     @Override
     public void fulfill(T result) {
         if (dispatched.compareAndSet(false, true)) {
-            internalFulfill(result);
+            if (ChainRegistry.ENABLED && registration == null) {
+                ChainRegistry.global().add(this);
+            }
+            if (affinity != null) {
+                affinity.run(() -> dispatchFulfill(result));
+            } else {
+                dispatchFulfill(result);
+            }
         } else {
             throw new IllegalStateException("Promise has already been dispatched.");
         }
@@ -378,46 +433,280 @@ public class PromiseImpl<T> implements Promise<T> {
     @Override
     public void reject(Throwable rejectedReason) {
         if (dispatched.compareAndSet(false, true)) {
-            internalReject(rejectedReason);
+            if (ChainRegistry.ENABLED && registration == null) {
+                ChainRegistry.global().add(this);
+            }
+            if (affinity != null) {
+                affinity.run(() -> dispatchReject(rejectedReason));
+            } else {
+                dispatchReject(rejectedReason);
+            }
         } else {
             throw new IllegalStateException("Promise has already been dispatched.");
         }
     }
 
+    private void dispatchFulfill(T result) {
+        PromiseDispatchEvent event = PromiseEvents.beginDispatch();
+        internalFulfill(result);
+        if (event != null) {
+            event.record(chainId(), promiseName(this), false);
+        }
+    }
+
+    private void dispatchReject(Throwable rejectedReason) {
+        PromiseDispatchEvent event = PromiseEvents.beginDispatch();
+        internalReject(rejectedReason);
+        if (event != null) {
+            event.record(chainId(), promiseName(this), true);
+        }
+    }
+
     protected PromiseFuture<Void> internalFulfill(T result) {
         setValue(result);
+        startStage();
+        if (METRICS.enabled()) {
+            readyNanos = System.nanoTime();
+        }
+        if (span != null) {
+            span.start(System.nanoTime(), promiseName(this));
+        }
 
-        for (PromiseHandler<T> handler : performOnFulfilled) {
-            handler.handle(result);
+        if (firstChild != null) {
+            performOnFulfilled(firstChild, result);
+            for (int i = 0; i < childrenSize; i++) {
+                performOnFulfilled(children[i], result);
+            }
         }
 
-        countdownHandler.handleSuccess();
+        PromiseCountdownHandler handler = countdownHandler;
+        if (handler != null) {
+            handler.handleSuccess();
+        } else {
+            countdownSuccess();
+        }
 
-        return resultFuture;
+        return resultFuture();
     }
 
     protected PromiseFuture<Void> internalReject(Throwable rejectedReason) {
         setReason(rejectedReason);
 
-        resultFuture.setOptional(optional);
+        optionalResult = optional;
+        startStage();
+        if (METRICS.enabled()) {
+            readyNanos = System.nanoTime();
+        }
+        if (span != null) {
+            span.start(System.nanoTime(), promiseName(this));
+        }
 
-        if (performOnRejected.size() > 0) {
-            for (PromiseHandler<Throwable> handler : performOnRejected) {
-                handler.handle(rejectedReason);
+        if (firstChild != null) {
+            performOnRejected(firstChild, rejectedReason);
+            for (int i = 0; i < childrenSize; i++) {
+                performOnRejected(children[i], rejectedReason);
             }
         }
 
-        countdownHandler.handleFailure(rejectedReason);
+        countdownHandler().handleFailure(rejectedReason);
 
-        return resultFuture;
+        return resultFuture();
     }
 
     protected <O> void internalThen(final PromiseTuple<T, O> tuple) {
-        children.add(tuple);
+        countdownHandler();
         countdown.incrementAndGet();
 
-        performOnFulfilled.add(createPerformOnFulfilled(tuple));
-        performOnRejected.add(createPerformOnRejected(tuple));
+        if (firstChild == null) {
+            firstChild = tuple;
+        } else {
+            if (children == null) {
+                children = newChildren(2);
+            } else if (childrenSize == children.length) {
+                PromiseTuple<T, ?>[] grown = newChildren(childrenSize * 2);
+                System.arraycopy(children, 0, grown, 0, childrenSize);
+                children = grown;
+            }
+            children[childrenSize++] = tuple;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private PromiseTuple<T, ?>[] newChildren(int size) {
+        return (PromiseTuple<T, ?>[]) new PromiseTuple<?, ?>[size];
+    }
+
+    private int childCount() {
+        return firstChild == null ? 0 : childrenSize + 1;
+    }
+
+    /**
+     * The children of this promise in the order they were added, replacing the protected children field of earlier
+     * versions.
+     *
+     * @return A live, read only view of the children
+     * @since 0.13
+     * @deprecated The children are an implementation detail of the chain and will be removed from the API.
+     */
+    @Deprecated
+    protected final List<PromiseTuple<T, ?>> children() {
+        return new AbstractList<PromiseTuple<T, ?>>() {
+            @Override
+            public PromiseTuple<T, ?> get(int index) {
+                if (index < 0 || index >= size()) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+                }
+                return index == 0 ? firstChild : children[index - 1];
+            }
+
+            @Override
+            public int size() {
+                return childCount();
+            }
+        };
+    }
+
+    /**
+     * The number of pending completions of this promise and its children, replacing the protected countdown field of
+     * earlier versions.  The countdown of a promise without children is created by the first call.
+     *
+     * @return The countdown
+     * @since 0.13
+     * @deprecated The countdown is an implementation detail of the chain and will be removed from the API.
+     */
+    @Deprecated
+    protected final AtomicInteger countdown() {
+        countdownHandler();
+        return countdown;
+    }
+
+    /**
+     * The handler of the countdown, replacing the protected countdownHandler field of earlier versions.  It is created
+     * by the first call, which may come from any thread dispatching the chain.
+     *
+     * @return The countdown handler
+     * @since 0.13
+     * @deprecated The countdown handler is an implementation detail of the chain and will be removed from the API.
+     */
+    @Deprecated
+    protected final PromiseCountdownHandler countdownHandler() {
+        PromiseCountdownHandler handler = countdownHandler;
+        if (handler == null) {
+            synchronized (this) {
+                handler = countdownHandler;
+                if (handler == null) {
+                    countdown = new AtomicInteger(1);
+                    handler = new PromiseCountdownHandler(countdown, result -> countdownSuccess(),
+                            this::countdownFailure);
+                    handler.recordCompletion(this);
+                    countdownHandler = handler;
+                }
+            }
+        }
+        return handler;
+    }
+
+    private void countdownSuccess() {
+        if (performAfter != null) {
+            traceChild(performAfter, span, TraceSpan.Kind.PROMISE);
+            final PromiseFuture<Void> afterFuture = performAfter.internalFulfill(null);
+            afterFuture.setHandler(event -> {
+                if (afterFuture.succeeded()) {
+                    completeResult(null);
+                } else {
+                    completeResult(afterFuture.cause());
+                }
+            });
+        } else {
+            completeResult(null);
+        }
+    }
+
+    private void countdownFailure(Throwable result) {
+        if (performAfter != null) {
+            traceChild(performAfter, span, TraceSpan.Kind.PROMISE);
+            final PromiseFuture<Void> afterFuture;
+            if (optional) {
+                afterFuture = performAfter.internalFulfill(null);
+            } else {
+                afterFuture = performAfter.internalReject(result);
+            }
+            afterFuture.setHandler(event -> {
+                if (afterFuture.failed()) {
+                    if (optional && result instanceof PromiseException) {
+                        ((PromiseException) result).addFailure(afterFuture.cause());
+                    } else {
+                        // A rejected after repeats the failures of this promise, so keep it as a single entry.
+                        result.addSuppressed(afterFuture.cause());
+                    }
+                }
+                completeResult(result);
+            });
+        } else {
+            completeResult(result);
+        }
+    }
+
+    /**
+     * Complete the result future, or when nobody has asked for it yet record a shared completed future instead.
+     */
+    private void completeResult(Throwable failure) {
+        if (span != null) {
+            span.end(failure == null || optionalResult);
+        }
+
+        PromiseFuture<Void> future;
+        synchronized (this) {
+            if (registration != null) {
+                registration.complete();
+                registration = null;
+            }
+            future = resultFuture;
+            if (future == null) {
+                resultFuture = failure == null || optionalResult ? PromiseFutures.VOID : PromiseFutures.failed(failure);
+                return;
+            }
+        }
+
+        if (failure == null) {
+            future.setResult(null);
+        } else {
+            future.setFailure(failure);
+        }
+    }
+
+    private synchronized PromiseFuture<Void> resultFuture() {
+        if (resultFuture == null) {
+            OptionalFuture<Void> future = new OptionalFuture<>();
+            future.setOptional(optionalResult);
+            resultFuture = future;
+        }
+        return resultFuture;
+    }
+
+    /**
+     * Register a callback executed once the functions of this promise have completed, without waiting for the promises
+     * further down the chain.  Must be called before the promise is fulfilled or rejected.
+     */
+    void onStageComplete(Runnable callback) {
+        this.onStageComplete = callback;
+    }
+
+    private void startStage() {
+        if (onStageComplete != null) {
+            int childCount = childCount();
+            if (childCount == 0) {
+                onStageComplete.run();
+            } else {
+                stageCountdown = new AtomicInteger(childCount);
+            }
+        }
+    }
+
+    private void completeStage() {
+        if (onStageComplete != null && stageCountdown.decrementAndGet() == 0) {
+            onStageComplete.run();
+        }
     }
 
     private void setValue(T value) {
@@ -431,23 +720,172 @@ public class PromiseImpl<T> implements Promise<T> {
     }
 
     protected PromiseImpl<T> copy() {
-        PromiseImpl<T> newPromise = new PromiseImpl<>(dispatched, pendingFutures, optional, nonduplicating);
-        for (PromiseTuple<T, ?> child : children) {
-            newPromise.internalThen(child.copy());
+        PromiseImpl<T> newPromise = new PromiseImpl<>(dispatched, pendingFutures, affinity, optional, nonduplicating);
+        newPromise.name = name;
+        if (firstChild != null) {
+            newPromise.internalThen(firstChild.copy());
+            for (int i = 0; i < childrenSize; i++) {
+                newPromise.internalThen(children[i].copy());
+            }
         }
 
         return newPromise;
     }
 
+    synchronized void register(ChainRegistry.Registration value) {
+        if (registration != null) {
+            throw new IllegalStateException("Promise is already registered.");
+        }
+        registration = value;
+    }
+
+    /**
+     * Snapshot the chain rooted at this promise.
+     */
+    ChainSnapshot inspect(long id, long ageNanos) {
+        List<ChainSnapshot.Node> nodes = new ArrayList<>();
+        inspect(0, nodes);
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<PromiseFunctionKey<?>, PromiseMultiFuture<?>> entry : pendingFutures.entrySet()) {
+            if (!entry.getValue().complete()) {
+                keys.add(entry.getKey().toString());
+            }
+        }
+        return new ChainSnapshot(id, promiseName(this), ageNanos, nodes, keys);
+    }
+
+    /**
+     * Add this promise if it is waiting for a stage or a child, then the promises below it which have started.  A
+     * child which has not been fulfilled or rejected is waiting for the stage which produces its value.  The copies
+     * fulfilled for the elements of a mapped list are not linked from their list, so they are not visited.
+     */
+    private void inspect(int depth, List<ChainSnapshot.Node> nodes) {
+        if (!fulfilled && !rejected) {
+            return;
+        }
+
+        List<PromiseTuple<T, ?>> tuples = inspectChildren();
+        List<String> pendingStages = new ArrayList<>();
+        for (PromiseTuple<T, ?> tuple : tuples) {
+            if (!tuple.promise().fulfilled && !tuple.promise().rejected) {
+                AsyncPromiseFunction<?, ?> function = fulfilled ? tuple.onFulfilled() : tuple.onRejected();
+                pendingStages.add(function != null ? stageName(tuple, function) : promiseName(tuple.promise()));
+            }
+        }
+        int count = countdownHandler != null ? countdown.get() : 0;
+        if (count > 0 || !pendingStages.isEmpty()) {
+            nodes.add(new ChainSnapshot.Node(promiseName(this), depth, count, pendingStages));
+        }
+
+        for (PromiseTuple<T, ?> tuple : tuples) {
+            tuple.promise().inspect(depth + 1, nodes);
+        }
+        if (performAfter != null) {
+            performAfter.inspect(depth + 1, nodes);
+        }
+    }
+
+    /**
+     * The children seen by the detector thread.  The array may be growing in internalThen, so its size can be newer than
+     * the array read; the array is read once and the loop bounded by its length, which at worst omits the newest
+     * children.
+     */
+    private List<PromiseTuple<T, ?>> inspectChildren() {
+        List<PromiseTuple<T, ?>> tuples = new ArrayList<>();
+        PromiseTuple<T, ?> first = firstChild;
+        if (first != null) {
+            tuples.add(first);
+        }
+        PromiseTuple<T, ?>[] array = children;
+        if (array != null) {
+            int size = Math.min(childrenSize, array.length);
+            for (int i = 0; i < size; i++) {
+                if (array[i] != null) {
+                    tuples.add(array[i]);
+                }
+            }
+        }
+        return tuples;
+    }
+
+    void traceSpan(TraceSpan value) {
+        this.span = value;
+    }
+
+    /**
+     * Trace a copy of a promise as a child of this promise, when this promise is traced.
+     */
+    <C> PromiseImpl<C> traced(PromiseImpl<C> copy) {
+        traceChild(copy, span, TraceSpan.Kind.COPY);
+        return copy;
+    }
+
+    /**
+     * Identifies the chain in flight recorder events.  Chains created through the protected constructors with another
+     * dispatch flag fall back to its identity hash code, which is not guaranteed to be unique.
+     */
+    long chainId() {
+        return dispatched instanceof DispatchState ? ((DispatchState) dispatched).id() : System.identityHashCode(dispatched);
+    }
+
+    static String promiseName(PromiseImpl<?> promise) {
+        return promise.name != null ? promise.name : promise.getClass().getSimpleName();
+    }
+
+    private static void traceChild(PromiseImpl<?> child, TraceSpan parent, TraceSpan.Kind kind) {
+        if (parent != null) {
+            child.span = parent.child(kind, promiseName(child));
+        }
+    }
+
+    /**
+     * Start a stage span for the function about to be called, and trace the promise it fulfills as a child of it.
+     */
+    private TraceSpan traceStage(PromiseTuple<T, ?> tuple, AsyncPromiseFunction<?, ?> function, long startNanos) {
+        if (span == null) {
+            return null;
+        }
+
+        TraceSpan stage = span.child(TraceSpan.Kind.STAGE, stageName(tuple, function));
+        stage.start(startNanos);
+        traceChild(tuple.promise(), stage, TraceSpan.Kind.PROMISE);
+        return stage;
+    }
+
+    private long stageStartNanos() {
+        return METRICS.enabled() || span != null ? System.nanoTime() : 0L;
+    }
+
     @SuppressWarnings("unchecked")
     private <O> PromiseMultiFuture<O> getNonDuplicatingFuture(
+            PromiseTuple<T, O> tuple,
             AsyncPromiseFunction<?, ? extends O> method,
             Object result,
             PromiseMultiFuture<O> pendingFuture) {
         PromiseMultiFuture<O> existingFuture = null;
         if (nonduplicating && method instanceof ComparablePromiseFunction) {
-            PromiseFunctionKey<?> key = new PromiseFunctionKey<>((ComparablePromiseFunction) method, result);
-            existingFuture = (PromiseMultiFuture<O>) pendingFutures.putIfAbsent(key, pendingFuture);
+            DedupStatistics statistics = DedupStatistics.enabled() ? DedupStatistics.of(functionClass(method)) : null;
+            if (statistics == null || statistics.attempt()) {
+                PromiseDedupEvent event = PromiseEvents.beginDedup();
+                // Keys are never removed, so repeated calls find their key with the probe and allocate nothing.
+                PromiseFunctionKey<Object> probe = PromiseFunctionKey.probe((ComparablePromiseFunction) method, result);
+                existingFuture = (PromiseMultiFuture<O>) pendingFutures.get(probe);
+                if (existingFuture == null) {
+                    existingFuture = (PromiseMultiFuture<O>) pendingFutures.putIfAbsent(probe.toKey(), pendingFuture);
+                } else {
+                    probe.clear();
+                }
+                boolean hit = existingFuture != null;
+                if (statistics != null) {
+                    statistics.record(hit, hit ? existingFuture.handlerCount() + 1 : 1);
+                }
+                if (METRICS.enabled()) {
+                    METRICS.dedup(stageName(tuple, method), hit);
+                }
+                if (event != null) {
+                    event.record(chainId(), stageName(tuple, method), hit);
+                }
+            }
         }
 
         if (existingFuture == null) {
@@ -457,18 +895,26 @@ public class PromiseImpl<T> implements Promise<T> {
         return existingFuture;
     }
 
+    /**
+     * Complete the pending future with the outcome of the function.  When the chain is pinned to an event loop and the
+     * function completed on another thread the continuation is handed back to the event loop.
+     */
+    private <O> void completeFuture(PromiseMultiFuture<O> pendingFuture, PromiseFuture<? extends O> event) {
+        if (affinity != null && !affinity.inEventLoop()) {
+            affinity.execute(() -> completeFuture(pendingFuture, event));
+        } else if (event.succeeded()) {
+            pendingFuture.setResult(event.result());
+        } else {
+            pendingFuture.setFailure(event.cause());
+        }
+    }
+
     private <O> PromiseHandler<PromiseFuture<O>> buildPromiseHandler(final PromiseTuple<T, O> tuple,
                                                                      Throwable rejectedReason) {
         return newResult -> {
+            completeStage();
             if (newResult.succeeded()) {
-                tuple.promise().internalFulfill(newResult.result()).setHandler(
-                        finished -> {
-                            if (finished.succeeded()) {
-                                countdownHandler.handleSuccess();
-                            } else {
-                                countdownHandler.handleFailure(finished.cause());
-                            }
-                        });
+                tuple.promise().internalFulfill(newResult.result()).setHandler(childCompleted());
             } else {
                 tuple.promise().internalReject(newResult.cause()).setHandler(
                         finished -> {
@@ -484,97 +930,226 @@ public class PromiseImpl<T> implements Promise<T> {
         };
     }
 
+    /**
+     * Synchronous functions which are not deduplicated complete before returning, so the outcome is passed straight
+     * to the child promise without creating any intermediate futures.
+     */
+    private <O> void performSync(PromiseFunctionResult<T, O> function, PromiseTuple<T, O> tuple, T result) {
+        final long startNanos = stageStartNanos();
+        final TraceSpan stage = traceStage(tuple, function, startNanos);
+        final PromiseStageEvent stageEvent = PromiseEvents.beginStage();
+        O value;
+        try {
+            value = function.handleSync(result);
+        } catch (Throwable throwable) {
+            recordStage(tuple, function, startNanos, stage, stageEvent, false);
+            completeStage();
+            tuple.promise().internalReject(throwable).setHandler(finished -> {
+                if (finished.succeeded()) {
+                    countdownHandler.handleSuccess();
+                } else {
+                    countdownHandler.handleFailure(throwable);
+                }
+            });
+            return;
+        }
+
+        recordStage(tuple, function, startNanos, stage, stageEvent, true);
+        completeStage();
+        tuple.promise().internalFulfill(value).setHandler(childCompleted());
+    }
+
+    private void recordStage(PromiseTuple<T, ?> tuple, AsyncPromiseFunction<?, ?> function, long startNanos,
+                             TraceSpan stage, PromiseStageEvent stageEvent, boolean succeeded) {
+        if (stage != null) {
+            stage.end(succeeded);
+        }
+        if (stageEvent != null) {
+            stageEvent.record(chainId(), stageName(tuple, function), succeeded);
+        }
+        if (METRICS.enabled()) {
+            long endNanos = System.nanoTime();
+            METRICS.stageCompleted(stageName(tuple, function), startNanos - readyNanos, endNanos - startNanos, succeeded);
+        }
+    }
+
+    /**
+     * Stages are named by the promise they fulfill, or otherwise by the class of the function applied.
+     */
+    private static String stageName(PromiseTuple<?, ?> tuple, AsyncPromiseFunction<?, ?> function) {
+        String stage = tuple.promise().name();
+        return stage != null ? stage : functionClass(function).getName();
+    }
+
+    /**
+     * The class of the user function, looking through the wrappers of synchronous functions.
+     */
+    private static Class<?> functionClass(AsyncPromiseFunction<?, ?> function) {
+        if (function instanceof PromiseFunctionResult) {
+            return ((PromiseFunctionResult<?, ?>) function).functionClass();
+        } else if (function instanceof PromiseListFunctionResult) {
+            return ((PromiseListFunctionResult<?, ?>) function).functionClass();
+        } else {
+            return function.getClass();
+        }
+    }
+
+    private PromiseHandler<PromiseFuture<Void>> childCompleted() {
+        if (childCompleted == null) {
+            childCompleted = finished -> {
+                if (finished.succeeded()) {
+                    countdownHandler.handleSuccess();
+                } else {
+                    countdownHandler.handleFailure(finished.cause());
+                }
+            };
+        }
+        return childCompleted;
+    }
+
     private <O> Promise<O> asyncThen(AsyncPromiseFunction<T, O> onFulfilled, AsyncPromiseFunction<Throwable, O> onRejected) {
         if (dispatched.get()) {
             throw new IllegalStateException("Promise has already been dispatched.");
         }
 
-        PromiseImpl<O> child = new PromiseImpl<>(dispatched, pendingFutures);
+        PromiseImpl<O> child = new PromiseImpl<>(dispatched, pendingFutures, affinity);
 
         internalThen(new PromiseTuple<>(child, onFulfilled, onRejected));
 
         return child;
     }
 
+    /**
+     * Chain the synchronous function to this promise, fulfilling the specified child promise with its result.
+     */
+    protected <O, P extends PromiseImpl<O>> P internalThenSync(P child, SyncPromiseFunction<T, ? extends O> onFulfilled) {
+        if (dispatched.get()) {
+            throw new IllegalStateException("Promise has already been dispatched.");
+        }
+
+        internalThen(new PromiseTuple<T, O>(child, new PromiseFunctionResult<>(onFulfilled), null));
+
+        return child;
+    }
+
     private <O> PromiseList<O> asyncThenList(AsyncPromiseListFunction<T, O> onFulfilled, AsyncPromiseListFunction<Throwable, O> onRejected) {
         if (dispatched.get()) {
             throw new IllegalStateException("Promise has already been dispatched.");
         }
 
-        PromiseListImpl<O> child = new PromiseListImpl<>(dispatched, pendingFutures);
+        PromiseListImpl<O> child = new PromiseListImpl<>(dispatched, pendingFutures, affinity);
 
         internalThen(new PromiseTuple<>(child, onFulfilled, onRejected));
 
         return child;
     }
 
-    private <O> PromiseHandler<Throwable> createPerformOnRejected(PromiseTuple<T, O> tuple) {
-        return rejectedReason -> {
-            if (tuple.onRejected() != null) {
-                PromiseMultiFuture<O> pendingFuture = new PromiseMultiFuture<>();
-                PromiseMultiFuture<O> existingFuture = getNonDuplicatingFuture(tuple.onRejected(), rejectedReason, pendingFuture);
-                boolean initialFuture = pendingFuture == existingFuture;
-
-                existingFuture.addHandler(buildPromiseHandler(tuple, rejectedReason));
-
-                if (initialFuture) {
-                    final PromiseMultiFuture<O> newPendingFuture = existingFuture;
-                    try {
-                        PromiseFuture<? extends O> future = tuple.onRejected().handle(rejectedReason);
-                        if (future != null) {
-                            future.setHandler(event -> {
-                                if (event.succeeded()) {
-                                    newPendingFuture.setResult(event.result());
-                                } else {
-                                    newPendingFuture.setFailure(event.cause());
-                                }
-                            });
-                        } else {
-                            newPendingFuture.setResult(null);
-                        }
-                    } catch (Throwable throwable) {
-                        newPendingFuture.setFailure(throwable);
-                    }
-                }
-            } else {
-                tuple.promise().internalReject(rejectedReason).setHandler(finished -> {
-                    if (finished.succeeded()) {
-                        countdownHandler.handleSuccess();
-                    } else {
-                        countdownHandler.handleFailure(rejectedReason);
-                    }
-                });
-            }
-        };
-    }
-
-    private <O> PromiseHandler<T> createPerformOnFulfilled(PromiseTuple<T, O> tuple) {
-        return result -> {
+    private <O> void performOnRejected(PromiseTuple<T, O> tuple, Throwable rejectedReason) {
+        if (tuple.onRejected() != null) {
             PromiseMultiFuture<O> pendingFuture = new PromiseMultiFuture<>();
-            PromiseMultiFuture<O> existingFuture = getNonDuplicatingFuture(tuple.onFulfilled(), result, pendingFuture);
+            PromiseMultiFuture<O> existingFuture = getNonDuplicatingFuture(tuple, tuple.onRejected(), rejectedReason, pendingFuture);
             boolean initialFuture = pendingFuture == existingFuture;
+            if (!initialFuture) {
+                traceChild(tuple.promise(), span, TraceSpan.Kind.PROMISE);
+            }
 
-            existingFuture.addHandler(buildPromiseHandler(tuple, null));
+            existingFuture.addHandler(buildPromiseHandler(tuple, rejectedReason));
 
             if (initialFuture) {
                 final PromiseMultiFuture<O> newPendingFuture = existingFuture;
+                final long startNanos = stageStartNanos();
+                final TraceSpan stage = traceStage(tuple, tuple.onRejected(), startNanos);
+                final PromiseStageEvent stageEvent = PromiseEvents.beginStage();
                 try {
-                    PromiseFuture<? extends O> future = tuple.onFulfilled().handle(result);
+                    PromiseFuture<? extends O> future = tuple.onRejected().handle(rejectedReason);
                     if (future != null) {
                         future.setHandler(event -> {
-                            if (event.succeeded()) {
-                                newPendingFuture.setResult(event.result());
-                            } else {
-                                newPendingFuture.setFailure(event.cause());
-                            }
+                            recordStage(tuple, tuple.onRejected(), startNanos, stage, stageEvent, event.succeeded());
+                            completeFuture(newPendingFuture, event);
                         });
                     } else {
+                        recordStage(tuple, tuple.onRejected(), startNanos, stage, stageEvent, true);
                         newPendingFuture.setResult(null);
                     }
                 } catch (Throwable throwable) {
+                    recordStage(tuple, tuple.onRejected(), startNanos, stage, stageEvent, false);
                     newPendingFuture.setFailure(throwable);
                 }
             }
-        };
+        } else {
+            completeStage();
+            traceChild(tuple.promise(), span, TraceSpan.Kind.PROMISE);
+            tuple.promise().internalReject(rejectedReason).setHandler(finished -> {
+                if (finished.succeeded()) {
+                    countdownHandler.handleSuccess();
+                } else {
+                    countdownHandler.handleFailure(rejectedReason);
+                }
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <O> void performOnFulfilled(PromiseTuple<T, O> tuple, T result) {
+        if (!nonduplicating && tuple.onFulfilled().getClass() == PromiseFunctionResult.class) {
+            performSync((PromiseFunctionResult<T, O>) tuple.onFulfilled(), tuple, result);
+            return;
+        }
+
+        PromiseMultiFuture<O> pendingFuture = new PromiseMultiFuture<>();
+        PromiseMultiFuture<O> existingFuture = getNonDuplicatingFuture(tuple, tuple.onFulfilled(), result, pendingFuture);
+        boolean initialFuture = pendingFuture == existingFuture;
+        if (!initialFuture) {
+            traceChild(tuple.promise(), span, TraceSpan.Kind.PROMISE);
+        }
+
+        existingFuture.addHandler(buildPromiseHandler(tuple, null));
+
+        if (initialFuture) {
+            final PromiseMultiFuture<O> newPendingFuture = existingFuture;
+            final long startNanos = stageStartNanos();
+            final TraceSpan stage = traceStage(tuple, tuple.onFulfilled(), startNanos);
+            final PromiseStageEvent stageEvent = PromiseEvents.beginStage();
+            try {
+                PromiseFuture<? extends O> future = tuple.onFulfilled().handle(result);
+                if (future != null) {
+                    future.setHandler(event -> {
+                        recordStage(tuple, tuple.onFulfilled(), startNanos, stage, stageEvent, event.succeeded());
+                        completeFuture(newPendingFuture, event);
+                    });
+                } else {
+                    recordStage(tuple, tuple.onFulfilled(), startNanos, stage, stageEvent, true);
+                    newPendingFuture.setResult(null);
+                }
+            } catch (Throwable throwable) {
+                recordStage(tuple, tuple.onFulfilled(), startNanos, stage, stageEvent, false);
+                newPendingFuture.setFailure(throwable);
+            }
+        }
+    }
+
+    /**
+     * The dispatch flag shared by every promise of a chain, which also carries the id of the chain.  The id is only
+     * taken from the global sequence when first requested, so chains which record no events never touch it.
+     */
+    private static final class DispatchState extends AtomicBoolean {
+        private static final long serialVersionUID = 1L;
+        private static final AtomicLong IDS = new AtomicLong();
+
+        private volatile long id;
+
+        long id() {
+            long value = id;
+            if (value == 0L) {
+                synchronized (this) {
+                    value = id;
+                    if (value == 0L) {
+                        value = IDS.incrementAndGet();
+                        id = value;
+                    }
+                }
+            }
+            return value;
+        }
     }
 }
@@ -16,6 +16,10 @@
 package com.groupon.promise;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collector;
 import javax.annotation.Nonnull;
 
 /**
@@ -38,7 +42,8 @@ public interface PromiseList<T> extends Promise<Collection<T>> {
      * Create a new Promise which expects to operate on a list of objects.  Any promises issued on the promise returned
      * by this method will be cloned and executed for each object in the list. This method does not limit concurrency for
      * for downstream asynchronous calls, all elements will be processed in parallel assuming the downstream functions
-     * are asynchronous.
+     * are asynchronous.  The chain of each element proceeds independently, so a nested list stage of one element starts
+     * as soon as that element is ready, while the Promise returned by {@link #after()} waits for every element.
      *
      * @return - A Promise that will act on all elements in the list returned by onFulfilled
      */
@@ -54,9 +59,121 @@ public interface PromiseList<T> extends Promise<Collection<T>> {
      */
     Promise<T> map(int concurrencyLimit);
 
+    /**
+     * Create a new Promise which expects to operate on a list of objects.  Any promises issued on the promise returned
+     * by this method will be cloned and executed for each object in the list.  Unlike {@link #map(int)} the concurrency
+     * limit only applies to the first stage of each element; once the functions directly chained to an element are
+     * complete the next element is started while the rest of the element's chain continues to drain.
+     *
+     * @param concurrencyLimit The number of elements executing their first stage concurrently.
+     * @return - A Promise that will act on all elements in the list returned by onFulfilled
+     * @throws IllegalArgumentException if the concurrency limit is less then 1
+     */
+    Promise<T> mapPipelined(int concurrencyLimit);
+
+    /**
+     * Create a new Promise which expects to operate on chunks of a list of objects.  Any promises issued on the promise
+     * returned by this method will be cloned and executed for each chunk of up to 'chunkSize' consecutive elements in
+     * the list, which amortizes the cost of cloning the chain when the work per element is small.
+     *
+     * @param chunkSize The maximum number of elements in each chunk.
+     * @return - A Promise that will act on all chunks of the list returned by onFulfilled
+     * @throws IllegalArgumentException if the chunk size is less then 1
+     */
+    Promise<List<T>> mapChunked(int chunkSize);
+
+    /**
+     * Create a new Promise which expects to operate on chunks of a list of objects.  Any promises issued on the promise
+     * returned by this method will be cloned and executed for each chunk of up to 'chunkSize' consecutive elements in
+     * the list.
+     *
+     * @param chunkSize The maximum number of elements in each chunk.
+     * @param concurrencyLimit The number of concurrent chunks to handle in the list.
+     * @return - A Promise that will act on all chunks of the list returned by onFulfilled
+     * @throws IllegalArgumentException if the chunk size or concurrency limit is less then 1
+     */
+    Promise<List<T>> mapChunked(int chunkSize, int concurrencyLimit);
+
+    /**
+     * Create a new PromiseList which is fulfilled with the results of applying the onFulfilled function to each element
+     * in the list.  Results are accumulated by the thread completing each element and merged once every element is
+     * complete, so the order of the resulting collection is unspecified.
+     *
+     * @param <O> Return type of the onFulfill function
+     * @param <V> Return type of the onFulfill function which extends O
+     * @param onFulfilled Function applied to each element in the list.
+     * @return A PromiseList that will act on the collected results
+     */
+    <O, V extends O> PromiseList<O> mapCollect(@Nonnull PromiseFunction<T, V> onFulfilled);
+
+    /**
+     * Create a new Promise which is fulfilled with the results of applying the onFulfilled function to each element in
+     * the list, as collected by the collector.  Results are accumulated in a partial container per thread and the
+     * partial containers are merged with the collector's combiner once every element is complete.
+     *
+     * @param <O> Return type of the onFulfill function
+     * @param <A> Mutable accumulation type of the collector
+     * @param <R> Result type of the collector
+     * @param onFulfilled Function applied to each element in the list.
+     * @param collector Collector used to accumulate the results.
+     * @return A Promise that will act on the collected result
+     */
+    <O, A, R> Promise<R> mapCollect(@Nonnull PromiseFunction<T, O> onFulfilled, @Nonnull Collector<? super O, A, R> collector);
+
+    /**
+     * Create a new PromiseList which is fulfilled with the results of applying the onFulfilled function to each element
+     * in the list, in the same order as the elements.  Each result is written directly to the position of its element,
+     * so no sorting or synchronization is required to restore the order.
+     *
+     * @param <O> Return type of the onFulfill function
+     * @param <V> Return type of the onFulfill function which extends O
+     * @param onFulfilled Function applied to each element in the list.
+     * @return A PromiseList that will act on the ordered results
+     */
+    <O, V extends O> PromiseList<O> mapCollectOrdered(@Nonnull PromiseFunction<T, V> onFulfilled);
+
+    /**
+     * Create a new PromiseList which is fulfilled with the results of applying the onFulfilled function to each element
+     * in the list, in the same order as the elements, while limiting the number of elements processed concurrently.
+     *
+     * @param <O> Return type of the onFulfill function
+     * @param <V> Return type of the onFulfill function which extends O
+     * @param onFulfilled Function applied to each element in the list.
+     * @param concurrencyLimit The number of concurrent elements to handle in the list.
+     * @return A PromiseList that will act on the ordered results
+     * @throws IllegalArgumentException if the concurrency limit is less then 1
+     */
+    <O, V extends O> PromiseList<O> mapCollectOrdered(@Nonnull PromiseFunction<T, V> onFulfilled, int concurrencyLimit);
+
+    /**
+     * Create a new Promise which is fulfilled with the reduction of the elements in the list.
+     *
+     * @param <U> The type of the result
+     * @param identity The initial value of each partial reduction.
+     * @param accumulator Folds an element into a partial reduction.
+     * @param combiner Merges two partial reductions.
+     * @return A Promise that will act on the reduced value
+     */
+    <U> Promise<U> reduce(U identity, @Nonnull BiFunction<U, ? super T, U> accumulator, @Nonnull BinaryOperator<U> combiner);
+
+    /**
+     * Create a new Promise which is fulfilled with the elements in the list as collected by the collector.
+     *
+     * @param <A> Mutable accumulation type of the collector
+     * @param <R> Result type of the collector
+     * @param collector Collector used to accumulate the elements.
+     * @return A Promise that will act on the collected result
+     */
+    <A, R> Promise<R> collect(@Nonnull Collector<? super T, A, R> collector);
+
     @Override
     PromiseList<T> optional(boolean optional);
 
     @Override
     PromiseList<T> nonduplicating(boolean nonduplicating);
+
+    @Override
+    default PromiseList<T> name(String name) {
+        return this;
+    }
 }
@@ -15,11 +15,21 @@
  */
 package com.groupon.promise;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 
 import com.groupon.promise.function.FulfillPromiseFunction;
@@ -39,10 +49,24 @@ public class PromiseListImpl<T> extends PromiseImpl<Collection<T>> implements Pr
         super();
     }
 
+    /**
+     * Create a PromiseList chain which executes every continuation on the specified single threaded executor.
+     *
+     * @param eventLoop A single threaded executor, or an {@link AffinityExecutor} wrapping one
+     */
+    public PromiseListImpl(@Nonnull Executor eventLoop) {
+        super(eventLoop);
+    }
+
     protected PromiseListImpl(AtomicBoolean promiseDispatched, ConcurrentMap<PromiseFunctionKey<?>, PromiseMultiFuture<?>> pendingFutures) {
         super(promiseDispatched, pendingFutures);
     }
 
+    protected PromiseListImpl(AtomicBoolean promiseDispatched, ConcurrentMap<PromiseFunctionKey<?>, PromiseMultiFuture<?>> pendingFutures,
+                              AffinityExecutor affinity) {
+        super(promiseDispatched, pendingFutures, affinity);
+    }
+
     @Override
     public PromiseList<T> thenList(@Nonnull PromiseList<T> promise) {
         if (promise == null) {
@@ -51,7 +75,7 @@ public class PromiseListImpl<T> extends PromiseImpl<Collection<T>> implements Pr
             throw new IllegalStateException("Promise has already been dispatched.");
         }
 
-        PromiseListImpl<T> child = new PromiseListImpl<>(dispatched, pendingFutures);
+        PromiseListImpl<T> child = new PromiseListImpl<>(dispatched, pendingFutures, affinity);
 
         internalThen(new PromiseTuple<>(child, new PromiseFunctionResult<>(new FulfillPromiseFunction<>(promise)),
                 new PromiseFunctionResult<>(new RejectPromiseFunction<>(promise))));
@@ -65,10 +89,10 @@ public class PromiseListImpl<T> extends PromiseImpl<Collection<T>> implements Pr
             throw new IllegalStateException("Promise has already been dispatched.");
         }
 
-        final PromiseImpl<T> child = new PromiseImpl<>(dispatched, pendingFutures);
+        final PromiseImpl<T> child = new PromiseImpl<>(dispatched, pendingFutures, affinity);
 
         AsyncPromiseFunction<Collection<T>, Void> onFulfilled = new PromiseOnFulfilledFunction<>(child);
-        AsyncPromiseFunction<Throwable, Void> onReject = new PromiseOnRejectFunction(child);
+        AsyncPromiseFunction<Throwable, Void> onReject = new PromiseOnRejectFunction<>(child);
 
         internalThen(new PromiseTuple<>(new PromiseImpl<>(), onFulfilled, onReject));
 
@@ -77,6 +101,15 @@ public class PromiseListImpl<T> extends PromiseImpl<Collection<T>> implements Pr
 
     @Override
     public Promise<T> map(int concurrencyLimit) {
+        return limitedMap(concurrencyLimit, false);
+    }
+
+    @Override
+    public Promise<T> mapPipelined(int concurrencyLimit) {
+        return limitedMap(concurrencyLimit, true);
+    }
+
+    private Promise<T> limitedMap(int concurrencyLimit, boolean pipelined) {
         if (dispatched.get()) {
             throw new IllegalStateException("Promise has already been dispatched.");
         }
@@ -85,16 +118,148 @@ public class PromiseListImpl<T> extends PromiseImpl<Collection<T>> implements Pr
             throw new IllegalArgumentException("Concurrency limit must be greater than 0");
         }
 
-        final PromiseImpl<T> child = new PromiseImpl<>(dispatched, pendingFutures);
+        final PromiseImpl<T> child = new PromiseImpl<>(dispatched, pendingFutures, affinity);
 
-        AsyncPromiseFunction<Collection<T>, Void> onFulfilled = new PromiseLimitedOnFulfilledFunction<>(child, concurrencyLimit);
-        AsyncPromiseFunction<Throwable, Void> onReject = new PromiseOnRejectFunction(child);
+        AsyncPromiseFunction<Collection<T>, Void> onFulfilled = new PromiseLimitedOnFulfilledFunction<>(child, concurrencyLimit, pipelined);
+        AsyncPromiseFunction<Throwable, Void> onReject = new PromiseOnRejectFunction<>(child);
 
         internalThen(new PromiseTuple<>(new PromiseImpl<>(), onFulfilled, onReject));
 
         return child;
     }
 
+    @Override
+    public Promise<List<T>> mapChunked(int chunkSize) {
+        return mapChunked(chunkSize, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Promise<List<T>> mapChunked(int chunkSize, int concurrencyLimit) {
+        if (dispatched.get()) {
+            throw new IllegalStateException("Promise has already been dispatched.");
+        }
+
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be greater than 0");
+        } else if (concurrencyLimit <= 0) {
+            throw new IllegalArgumentException("Concurrency limit must be greater than 0");
+        }
+
+        final PromiseImpl<List<T>> child = new PromiseImpl<>(dispatched, pendingFutures, affinity);
+
+        AsyncPromiseFunction<Collection<List<T>>, Void> onFulfilledChunk;
+        if (concurrencyLimit == Integer.MAX_VALUE) {
+            onFulfilledChunk = new PromiseOnFulfilledFunction<>(child);
+        } else {
+            onFulfilledChunk = new PromiseLimitedOnFulfilledFunction<>(child, concurrencyLimit, false);
+        }
+        AsyncPromiseFunction<Collection<T>, Void> onFulfilled = new PromiseChunkedOnFulfilledFunction<>(chunkSize, onFulfilledChunk);
+        AsyncPromiseFunction<Throwable, Void> onReject = new PromiseOnRejectFunction<>(child);
+
+        internalThen(new PromiseTuple<>(new PromiseImpl<>(), onFulfilled, onReject));
+
+        return child;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <O, V extends O> PromiseList<O> mapCollect(@Nonnull PromiseFunction<T, V> onFulfilled) {
+        if (onFulfilled == null) {
+            throw new IllegalArgumentException("onFulfilled cannot be null");
+        } else if (dispatched.get()) {
+            throw new IllegalStateException("Promise has already been dispatched.");
+        }
+
+        PromiseListImpl<O> child = new PromiseListImpl<>(dispatched, pendingFutures, affinity);
+
+        Collector<O, ?, Collection<O>> collector = Collectors.toCollection(ArrayList::new);
+        internalThen(new PromiseTuple<>(child, new PromiseCollectFunction<>(
+                toAsyncFunction((PromiseFunction<T, O>) onFulfilled), collector), null));
+
+        return child;
+    }
+
+    @Override
+    public <O, A, R> Promise<R> mapCollect(@Nonnull PromiseFunction<T, O> onFulfilled,
+                                           @Nonnull Collector<? super O, A, R> collector) {
+        if (onFulfilled == null) {
+            throw new IllegalArgumentException("onFulfilled cannot be null");
+        } else if (collector == null) {
+            throw new IllegalArgumentException("Collector cannot be null");
+        } else if (dispatched.get()) {
+            throw new IllegalStateException("Promise has already been dispatched.");
+        }
+
+        PromiseImpl<R> child = new PromiseImpl<>(dispatched, pendingFutures, affinity);
+
+        internalThen(new PromiseTuple<>(child, new PromiseCollectFunction<>(toAsyncFunction(onFulfilled), collector), null));
+
+        return child;
+    }
+
+    @Override
+    public <O, V extends O> PromiseList<O> mapCollectOrdered(@Nonnull PromiseFunction<T, V> onFulfilled) {
+        return mapCollectOrdered(onFulfilled, Integer.MAX_VALUE);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <O, V extends O> PromiseList<O> mapCollectOrdered(@Nonnull PromiseFunction<T, V> onFulfilled,
+                                                             int concurrencyLimit) {
+        if (onFulfilled == null) {
+            throw new IllegalArgumentException("onFulfilled cannot be null");
+        } else if (concurrencyLimit <= 0) {
+            throw new IllegalArgumentException("Concurrency limit must be greater than 0");
+        } else if (dispatched.get()) {
+            throw new IllegalStateException("Promise has already been dispatched.");
+        }
+
+        PromiseListImpl<O> child = new PromiseListImpl<>(dispatched, pendingFutures, affinity);
+
+        internalThen(new PromiseTuple<>(child, new PromiseOrderedCollectFunction<>(
+                toAsyncFunction((PromiseFunction<T, O>) onFulfilled), concurrencyLimit), null));
+
+        return child;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <U> Promise<U> reduce(U identity, @Nonnull BiFunction<U, ? super T, U> accumulator,
+                                 @Nonnull BinaryOperator<U> combiner) {
+        if (accumulator == null) {
+            throw new IllegalArgumentException("Accumulator cannot be null");
+        } else if (combiner == null) {
+            throw new IllegalArgumentException("Combiner cannot be null");
+        }
+
+        // Box the partial reduction so an immutable identity can be used as a mutable container.
+        return collect(Collector.<T, Object[], U>of(
+                () -> new Object[] {identity},
+                (box, element) -> box[0] = accumulator.apply((U) box[0], element),
+                (left, right) -> {
+                    left[0] = combiner.apply((U) left[0], (U) right[0]);
+                    return left;
+                },
+                box -> (U) box[0]));
+    }
+
+    @Override
+    public <A, R> Promise<R> collect(@Nonnull Collector<? super T, A, R> collector) {
+        if (collector == null) {
+            throw new IllegalArgumentException("Collector cannot be null");
+        }
+
+        return thenSync(data -> {
+            PartialAccumulator<T, A, R> partials = new PartialAccumulator<>(collector);
+            if (data != null) {
+                for (T element : data) {
+                    partials.accumulate(element);
+                }
+            }
+            return partials.finish();
+        });
+    }
+
     @Override
     public PromiseList<T> optional(boolean value) {
         super.optional(value);
@@ -107,6 +272,24 @@ public class PromiseListImpl<T> extends PromiseImpl<Collection<T>> implements Pr
         return this;
     }
 
+    @Override
+    public PromiseList<T> name(String value) {
+        super.name(value);
+        return this;
+    }
+
+    /**
+     * Start the chain of a list element on a copy of the mapped promise.
+     */
+    private <E> PromiseFuture<Void> fulfillElement(PromiseImpl<E> copy, E element) {
+        PromiseMapElementEvent event = PromiseEvents.beginMapElement();
+        PromiseFuture<Void> future = copy.internalFulfill(element);
+        if (event != null) {
+            event.record(chainId(), promiseName(copy));
+        }
+        return future;
+    }
+
     /**
      * Non concurrency limited onfulfill function, walks over the list of elements firing off a child
      * promise for each element in the list.
@@ -120,10 +303,11 @@ public class PromiseListImpl<T> extends PromiseImpl<Collection<T>> implements Pr
 
         @Override
         public PromiseFuture<Void> handle(Collection<T> data) {
-            final PromiseFuture<Void> handleFuture = new DefaultPromiseFuture<>();
+            final PromiseFuture<Void> handleFuture;
             if (data.size() == 0) {
-                handleFuture.setResult(null);
+                handleFuture = PromiseFutures.VOID;
             } else {
+                handleFuture = new DefaultPromiseFuture<>();
                 final PromiseCountdownHandler countdownHandler = new PromiseCountdownHandler(new AtomicInteger(data.size()),
                         new PromiseHandler<Void>() {
                             @Override
@@ -138,8 +322,9 @@ public class PromiseListImpl<T> extends PromiseImpl<Collection<T>> implements Pr
                             }
                         }
                 );
+                countdownHandler.recordCompletion(PromiseListImpl.this);
                 for (T element : data) {
-                    child.copy().internalFulfill(element).setHandler(new PromiseHandler<PromiseFuture<Void>>() {
+                    fulfillElement(traced(child.copy()), element).setHandler(new PromiseHandler<PromiseFuture<Void>>() {
                         @Override
                         public void handle(PromiseFuture<Void> event) {
                             if (event.succeeded()) {
@@ -163,22 +348,27 @@ public class PromiseListImpl<T> extends PromiseImpl<Collection<T>> implements Pr
     private class PromiseLimitedOnFulfilledFunction<T> implements AsyncPromiseFunction<Collection<T>, Void> {
         private PromiseImpl<T> child;
         private int concurrencyLimit;
+        private boolean pipelined;
 
-        PromiseLimitedOnFulfilledFunction(PromiseImpl<T> child, int concurrencyLimit) {
+        PromiseLimitedOnFulfilledFunction(PromiseImpl<T> child, int concurrencyLimit, boolean pipelined) {
             this.child = child;
             this.concurrencyLimit = concurrencyLimit;
+            this.pipelined = pipelined;
         }
 
         @Override
         public PromiseFuture<Void> handle(Collection<T> data) {
-            final PromiseFuture<Void> handleFuture = new DefaultPromiseFuture<>();
+            final PromiseFuture<Void> handleFuture;
             if (data.size() == 0) {
-                handleFuture.setResult(null);
+                handleFuture = PromiseFutures.VOID;
             } else {
-                // Create a concurrent linked queue for thread safety.
-                final ConcurrentLinkedQueue<T> queueList = new ConcurrentLinkedQueue<>(data);
+                handleFuture = new DefaultPromiseFuture<>();
+                // The elements are handed out as each one completes, possibly from other threads, so the list is copied
+                // to isolate it from later changes by the caller.  A spilled list is streamed instead of copied.
+                final Collection<T> elements = data instanceof SpillableCollection ? data : new ArrayList<>(data);
+                final ElementQueue<T> queueList = new ElementQueue<>(elements.iterator());
 
-                final PromiseCountdownHandler countdownHandler = new PromiseCountdownHandler(new AtomicInteger(queueList.size()),
+                final PromiseCountdownHandler countdownHandler = new PromiseCountdownHandler(new AtomicInteger(elements.size()),
                         new PromiseHandler<Void>() {
                             @Override
                             public void handle(Void event) {
@@ -192,15 +382,18 @@ public class PromiseListImpl<T> extends PromiseImpl<Collection<T>> implements Pr
                             }
                         }
                 );
+                countdownHandler.recordCompletion(PromiseListImpl.this);
 
                 for (int i = 0; i < concurrencyLimit; i++) {
                     T element = queueList.poll();
-                    if (element != null) {
-                        child.copy().internalFulfill(element).setHandler(
-                                new ConcurrencyLimitHandler<>(queueList, countdownHandler, child));
-                    } else {
+                    if (queueList.isEnd(element)) {
                         // There are no more elements in the list.
                         break;
+                    } else if (pipelined) {
+                        new PipelinedConcurrencyLimitHandler<>(queueList, countdownHandler, child).fulfill(element);
+                    } else {
+                        fulfillElement(traced(child.copy()), element).setHandler(
+                                new ConcurrencyLimitHandler<>(queueList, countdownHandler, child));
                     }
                 }
             }
@@ -208,10 +401,222 @@ public class PromiseListImpl<T> extends PromiseImpl<Collection<T>> implements Pr
         }
     }
 
+    /**
+     * Splits the list into chunks and hands the chunks to the wrapped onfulfill function, so a single child promise is
+     * fired off for each chunk rather than for each element.
+     */
+    private class PromiseChunkedOnFulfilledFunction<T> implements AsyncPromiseFunction<Collection<T>, Void> {
+        private int chunkSize;
+        private AsyncPromiseFunction<Collection<List<T>>, Void> onFulfilled;
+
+        PromiseChunkedOnFulfilledFunction(int chunkSize, AsyncPromiseFunction<Collection<List<T>>, Void> onFulfilled) {
+            this.chunkSize = chunkSize;
+            this.onFulfilled = onFulfilled;
+        }
+
+        @Override
+        public PromiseFuture<? extends Void> handle(Collection<T> data) {
+            if (data == null || data.isEmpty()) {
+                return onFulfilled.handle(Collections.emptyList());
+            }
+
+            List<T> elements;
+            if (data instanceof List && data instanceof RandomAccess) {
+                elements = (List<T>) data;
+            } else {
+                elements = new ArrayList<>(data);
+            }
+
+            int size = elements.size();
+            List<List<T>> chunks = new ArrayList<>((size + chunkSize - 1) / chunkSize);
+            for (int start = 0; start < size; start += chunkSize) {
+                chunks.add(elements.subList(start, Math.min(start + chunkSize, size)));
+            }
+            return onFulfilled.handle(chunks);
+        }
+    }
+
+    /**
+     * Applies a function to every element in the list and accumulates the results per thread, merging the partial
+     * results once every element is complete.
+     */
+    private class PromiseCollectFunction<T, O, A, R> implements AsyncPromiseFunction<Collection<T>, R> {
+        private AsyncPromiseFunction<T, ? extends O> onFulfilled;
+        private Collector<? super O, A, R> collector;
+
+        PromiseCollectFunction(AsyncPromiseFunction<T, ? extends O> onFulfilled, Collector<? super O, A, R> collector) {
+            this.onFulfilled = onFulfilled;
+            this.collector = collector;
+        }
+
+        @Override
+        public PromiseFuture<R> handle(Collection<T> data) {
+            final PromiseFuture<R> handleFuture = new DefaultPromiseFuture<>();
+            final PartialAccumulator<O, A, R> partials = new PartialAccumulator<>(collector);
+            if (data == null || data.isEmpty()) {
+                handleFuture.setResult(partials.finish());
+            } else {
+                final PromiseCountdownHandler countdownHandler = new PromiseCountdownHandler(new AtomicInteger(data.size()),
+                        event -> {
+                            try {
+                                handleFuture.setResult(partials.finish());
+                            } catch (RuntimeException e) {
+                                handleFuture.setFailure(e);
+                            }
+                        },
+                        handleFuture::setFailure);
+                countdownHandler.recordCompletion(PromiseListImpl.this);
+                for (T element : data) {
+                    try {
+                        PromiseFuture<? extends O> future = onFulfilled.handle(element);
+                        if (future != null) {
+                            future.setHandler(event -> accumulate(partials, countdownHandler, event));
+                        } else {
+                            partials.accumulate(null);
+                            countdownHandler.handleSuccess();
+                        }
+                    } catch (Throwable t) {
+                        countdownHandler.handleFailure(t);
+                    }
+                }
+            }
+            return handleFuture;
+        }
+
+        private void accumulate(PartialAccumulator<O, A, R> partials, PromiseCountdownHandler countdownHandler,
+                                PromiseFuture<? extends O> event) {
+            if (event.failed()) {
+                countdownHandler.handleFailure(event.cause());
+                return;
+            }
+
+            try {
+                partials.accumulate(event.result());
+            } catch (RuntimeException e) {
+                countdownHandler.handleFailure(e);
+                return;
+            }
+            countdownHandler.handleSuccess();
+        }
+    }
+
+    /**
+     * Applies a function to every element in the list, writing each result to the slot matching the index of its
+     * element.  Elements are claimed by index, so at most 'concurrencyLimit' elements are in flight at once.
+     */
+    private class PromiseOrderedCollectFunction<T, O> implements AsyncPromiseFunction<Collection<T>, Collection<O>> {
+        private AsyncPromiseFunction<T, ? extends O> onFulfilled;
+        private int concurrencyLimit;
+
+        PromiseOrderedCollectFunction(AsyncPromiseFunction<T, ? extends O> onFulfilled, int concurrencyLimit) {
+            this.onFulfilled = onFulfilled;
+            this.concurrencyLimit = concurrencyLimit;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public PromiseFuture<Collection<O>> handle(Collection<T> data) {
+            final PromiseFuture<Collection<O>> handleFuture;
+            if (data == null || data.isEmpty()) {
+                handleFuture = PromiseFutures.completed(Collections.emptyList());
+            } else {
+                handleFuture = new DefaultPromiseFuture<>();
+                final Object[] elements = data.toArray();
+                final Object[] results = new Object[elements.length];
+                final PromiseCountdownHandler countdownHandler = new PromiseCountdownHandler(new AtomicInteger(elements.length),
+                        event -> handleFuture.setResult((List<O>) Arrays.asList(results)),
+                        handleFuture::setFailure);
+                countdownHandler.recordCompletion(PromiseListImpl.this);
+                final OrderedRun run = new OrderedRun(elements, results, countdownHandler);
+
+                if (concurrencyLimit >= elements.length) {
+                    for (int i = 0; i < elements.length; i++) {
+                        run.start(i);
+                    }
+                } else {
+                    for (int i = 0; i < concurrencyLimit; i++) {
+                        run.release();
+                    }
+                }
+            }
+            return handleFuture;
+        }
+
+        /**
+         * The state of one ordered collection.  With a concurrency limit each completed element releases a slot for the
+         * next one; slots released while another call is already starting elements are handed to that call's loop, so a
+         * function which completes synchronously does not add a stack frame per element.
+         */
+        private final class OrderedRun {
+            private final Object[] elements;
+            private final Object[] results;
+            private final PromiseCountdownHandler countdownHandler;
+            private final AtomicInteger nextIndex = new AtomicInteger(0);
+            private final AtomicInteger releases = new AtomicInteger(0);
+            private final boolean limited;
+
+            OrderedRun(Object[] elements, Object[] results, PromiseCountdownHandler countdownHandler) {
+                this.elements = elements;
+                this.results = results;
+                this.countdownHandler = countdownHandler;
+                this.limited = concurrencyLimit < elements.length;
+            }
+
+            void release() {
+                if (releases.getAndIncrement() == 0) {
+                    do {
+                        int index = nextIndex.getAndIncrement();
+                        if (index < elements.length) {
+                            start(index);
+                        }
+                    } while (releases.decrementAndGet() != 0);
+                }
+            }
+
+            @SuppressWarnings("unchecked")
+            void start(int index) {
+                PromiseFuture<? extends O> future;
+                try {
+                    future = onFulfilled.handle((T) elements[index]);
+                } catch (Throwable t) {
+                    completeFailure(t);
+                    return;
+                }
+
+                if (future != null) {
+                    future.setHandler(event -> {
+                        if (event.succeeded()) {
+                            results[index] = event.result();
+                            completeSuccess();
+                        } else {
+                            completeFailure(event.cause());
+                        }
+                    });
+                } else {
+                    completeSuccess();
+                }
+            }
+
+            private void completeSuccess() {
+                if (limited) {
+                    release();
+                }
+                countdownHandler.handleSuccess();
+            }
+
+            private void completeFailure(Throwable t) {
+                if (limited) {
+                    release();
+                }
+                countdownHandler.handleFailure(t);
+            }
+        }
+    }
+
     /**
      * onReject function that gets called if this PromiseListImpl is rejected, simply rejects a copy of the child promise.
      */
-    private class PromiseOnRejectFunction implements AsyncPromiseFunction<Throwable, Void> {
+    private class PromiseOnRejectFunction<T> implements AsyncPromiseFunction<Throwable, Void> {
         private PromiseImpl<T> child;
 
         PromiseOnRejectFunction(PromiseImpl<T> child) {
@@ -221,7 +626,7 @@ public class PromiseListImpl<T> extends PromiseImpl<Collection<T>> implements Pr
         @Override
         public PromiseFuture<Void> handle(Throwable data) {
             final PromiseFuture<Void> handleFuture = new DefaultPromiseFuture<>();
-            child.copy().internalReject(data).setHandler(new PromiseHandler<PromiseFuture<Void>>() {
+            traced(child.copy()).internalReject(data).setHandler(new PromiseHandler<PromiseFuture<Void>>() {
                 @Override
                 public void handle(PromiseFuture<Void> event) {
                     if (event.succeeded()) {
@@ -235,15 +640,38 @@ public class PromiseListImpl<T> extends PromiseImpl<Collection<T>> implements Pr
         }
     }
 
+    /**
+     * Hands out the elements of a list one at a time to the handlers of a limited map.  Null elements are allowed, so
+     * the end of the list is marked with a sentinel.
+     */
+    private static final class ElementQueue<T> {
+        private static final Object END = new Object();
+
+        private final Iterator<T> iterator;
+
+        ElementQueue(Iterator<T> iterator) {
+            this.iterator = iterator;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized T poll() {
+            return iterator.hasNext() ? iterator.next() : (T) END;
+        }
+
+        boolean isEnd(T element) {
+            return element == END;
+        }
+    }
+
     /**
      * Handler that calls fulfill for the next element if one exists.
      */
     private class ConcurrencyLimitHandler<T> implements PromiseHandler<PromiseFuture<Void>> {
-        private final ConcurrentLinkedQueue<T> queueList;
+        private final ElementQueue<T> queueList;
         private final PromiseCountdownHandler countdownHandler;
         private final PromiseImpl<T> childPromise;
 
-        ConcurrencyLimitHandler(ConcurrentLinkedQueue<T> queueList, PromiseCountdownHandler countdownHandler,
+        ConcurrencyLimitHandler(ElementQueue<T> queueList, PromiseCountdownHandler countdownHandler,
                                        PromiseImpl<T> childPromise) {
             this.queueList = queueList;
             this.countdownHandler = countdownHandler;
@@ -253,10 +681,57 @@ public class PromiseListImpl<T> extends PromiseImpl<Collection<T>> implements Pr
         @Override
         public void handle(PromiseFuture<Void> event) {
             T element = queueList.poll();
-            if (element != null) {
-                childPromise.copy().internalFulfill(element).setHandler(this);
+            if (!queueList.isEnd(element)) {
+                fulfillElement(traced(childPromise.copy()), element).setHandler(this);
+            }
+
+            if (event.succeeded()) {
+                countdownHandler.handleSuccess();
+            } else {
+                countdownHandler.handleFailure(event.cause());
+            }
+        }
+    }
+
+    /**
+     * Handler that calls fulfill for the next element as soon as the first stage of the current element is complete,
+     * while the remainder of the element's chain continues to drain independently.
+     */
+    private class PipelinedConcurrencyLimitHandler<T> implements PromiseHandler<PromiseFuture<Void>>, Runnable {
+        private final ElementQueue<T> queueList;
+        private final PromiseCountdownHandler countdownHandler;
+        private final PromiseImpl<T> childPromise;
+        // Stage completions not yet acted on.  The first one loops until they are all handled, so a stage completing
+        // synchronously inside fulfill does not start the next element on a deeper stack.
+        private final AtomicInteger releases = new AtomicInteger();
+
+        PipelinedConcurrencyLimitHandler(ElementQueue<T> queueList, PromiseCountdownHandler countdownHandler,
+                                         PromiseImpl<T> childPromise) {
+            this.queueList = queueList;
+            this.countdownHandler = countdownHandler;
+            this.childPromise = childPromise;
+        }
+
+        void fulfill(T element) {
+            PromiseImpl<T> elementPromise = traced(childPromise.copy());
+            elementPromise.onStageComplete(this);
+            fulfillElement(elementPromise, element).setHandler(this);
+        }
+
+        @Override
+        public void run() {
+            if (releases.getAndIncrement() == 0) {
+                do {
+                    T element = queueList.poll();
+                    if (!queueList.isEnd(element)) {
+                        fulfill(element);
+                    }
+                } while (releases.decrementAndGet() != 0);
             }
+        }
 
+        @Override
+        public void handle(PromiseFuture<Void> event) {
             if (event.succeeded()) {
                 countdownHandler.handleSuccess();
             } else {
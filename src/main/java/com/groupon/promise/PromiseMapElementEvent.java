@@ -0,0 +1,48 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for the synchronous part of starting the chain of a list element.
+ *
+ * @since 0.13
+ */
+@Name("com.groupon.promise.MapElement")
+@Label("Promise Map Element")
+@Category("Promise")
+@Description("A copy of the mapped chain fulfilled with an element of a list, until control returned to the list")
+@Enabled(false)
+@StackTrace(false)
+final class PromiseMapElementEvent extends jdk.jfr.Event {
+    @Label("Chain Id")
+    long chainId;
+
+    @Label("Promise")
+    String promise;
+
+    void record(long chain, String name) {
+        chainId = chain;
+        promise = name;
+        commit();
+    }
+}
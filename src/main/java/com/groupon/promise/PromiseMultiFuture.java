@@ -107,6 +107,16 @@ public class PromiseMultiFuture<T> extends DefaultPromiseFuture<T> {
         return failed || succeeded;
     }
 
+    /**
+     * The number of handlers added, which for a deduplicated call is the number of callers sharing it.
+     *
+     * @return The number of handlers
+     * @since 0.13
+     */
+    public int handlerCount() {
+        return handlers.size();
+    }
+
     /**
      * Add a handler to be called on complete.
      *
@@ -0,0 +1,279 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nonnull;
+
+/**
+ * Records the execution of a single promise chain, including the copies created for the elements of a list, as a tree
+ * of {@link TraceSpan}s.  Once the root promise and its after promise are complete the tracer computes the critical
+ * path, the chain of spans which determined the wall time of the chain, and the trace can be exported as Chrome
+ * trace-event JSON or as an OpenTelemetry (OTLP/JSON) span tree.
+ *
+ * <pre>
+ * PromiseImpl&lt;String&gt; promise = new PromiseTracer().trace(new PromiseImpl&lt;&gt;());
+ * </pre>
+ *
+ * Chains which are not traced pay only a null check per promise.
+ *
+ * @since 0.13
+ */
+public final class PromiseTracer {
+    private final AtomicLong ids = new AtomicLong();
+    private final Queue<TraceSpan> spans = new ConcurrentLinkedQueue<>();
+    private final long baseNanos = System.nanoTime();
+    private final long baseEpochNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    private final String traceId = String.format("%016x%016x",
+            ThreadLocalRandom.current().nextLong(), ThreadLocalRandom.current().nextLong());
+
+    private volatile TraceSpan root;
+    private volatile List<TraceSpan> criticalPath;
+
+    /**
+     * Trace the chain rooted at the promise.  Must be called before the promise is fulfilled or rejected.
+     *
+     * @param <P> The type of the promise
+     * @param promise The root of the chain
+     * @return The promise
+     * @throws IllegalArgumentException if the promise is not a PromiseImpl
+     * @throws IllegalStateException if the promise has already been dispatched or this tracer is already in use
+     */
+    public <P extends Promise<?>> P trace(@Nonnull P promise) {
+        if (!(promise instanceof PromiseImpl)) {
+            throw new IllegalArgumentException("Unsupported type: " + promise.getClass());
+        }
+
+        PromiseImpl<?> impl = (PromiseImpl<?>) promise;
+        if (impl.dispatched.get()) {
+            throw new IllegalStateException("Promise has already been dispatched.");
+        }
+
+        synchronized (this) {
+            if (root != null) {
+                throw new IllegalStateException("Tracer is already tracing a chain.");
+            }
+            root = newSpan(null, TraceSpan.Kind.PROMISE, PromiseImpl.promiseName(impl));
+        }
+        impl.traceSpan(root);
+        return promise;
+    }
+
+    TraceSpan newSpan(TraceSpan parent, TraceSpan.Kind kind, String name) {
+        TraceSpan span = new TraceSpan(this, ids.incrementAndGet(), parent, kind, name);
+        spans.add(span);
+        return span;
+    }
+
+    void complete(TraceSpan rootSpan) {
+        Map<TraceSpan, List<TraceSpan>> children = new HashMap<>();
+        for (TraceSpan span : spans) {
+            if (span.parent() != null && span.ended()) {
+                children.computeIfAbsent(span.parent(), key -> new ArrayList<>()).add(span);
+            }
+        }
+
+        // Heuristic: assume each span waited on the child which ended last.  A span can end before its children, for
+        // example a stage span ends before the copies of a list it spawned, so the path follows the latest child
+        // rather than requiring it to end inside its parent.
+        List<TraceSpan> path = new ArrayList<>();
+        TraceSpan current = rootSpan;
+        while (current != null) {
+            current.critical(true);
+            path.add(current);
+            TraceSpan next = null;
+            for (TraceSpan child : children.getOrDefault(current, Collections.emptyList())) {
+                if (next == null || child.endNanos() > next.endNanos()) {
+                    next = child;
+                }
+            }
+            current = next;
+        }
+        criticalPath = Collections.unmodifiableList(path);
+    }
+
+    /**
+     * Whether the root promise and everything chained to it are complete.
+     *
+     * @return True once complete
+     */
+    public boolean completed() {
+        return criticalPath != null;
+    }
+
+    /**
+     * The span of the root promise.
+     *
+     * @return The root span, or null if no chain is traced
+     */
+    public TraceSpan root() {
+        return root;
+    }
+
+    /**
+     * The spans recorded so far, in the order they were created.
+     *
+     * @return A snapshot of the spans
+     */
+    public List<TraceSpan> spans() {
+        return new ArrayList<>(spans);
+    }
+
+    /**
+     * The estimated critical path of the chain: from the root, the child which ended last at each span, on the
+     * assumption that its parent waited on it.
+     *
+     * @return The spans on the critical path, starting with the root
+     * @throws IllegalStateException if the chain has not completed
+     */
+    public List<TraceSpan> criticalPath() {
+        List<TraceSpan> path = criticalPath;
+        if (path == null) {
+            throw new IllegalStateException("Chain has not completed.");
+        }
+        return path;
+    }
+
+    /**
+     * Write the started spans as Chrome trace-event JSON, which can be loaded by chrome://tracing or Perfetto.  Each
+     * span is a complete event on the thread it started on, with its id, parent and whether it is on the critical path
+     * as arguments.
+     *
+     * @param out Where to write the JSON
+     * @throws IOException if the JSON cannot be written
+     */
+    public void writeChromeTrace(@Nonnull Appendable out) throws IOException {
+        Map<String, Integer> threads = new LinkedHashMap<>();
+        out.append("{\"displayTimeUnit\":\"ns\",\"traceEvents\":[");
+        boolean first = true;
+        for (TraceSpan span : spans) {
+            if (!span.started()) {
+                continue;
+            }
+            Integer tid = threads.computeIfAbsent(span.threadName(), key -> threads.size() + 1);
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            out.append("{\"name\":");
+            appendString(out, span.name());
+            out.append(",\"cat\":\"").append(span.kind().name().toLowerCase(Locale.ROOT)).append('"');
+            out.append(",\"ph\":\"X\",\"pid\":1,\"tid\":").append(tid.toString());
+            out.append(",\"ts\":").append(micros(span.startNanos() - baseNanos));
+            out.append(",\"dur\":").append(micros(span.durationNanos()));
+            out.append(",\"args\":{\"id\":").append(Long.toString(span.id()));
+            if (span.parent() != null) {
+                out.append(",\"parent\":").append(Long.toString(span.parent().id()));
+            }
+            out.append(",\"succeeded\":").append(Boolean.toString(span.succeeded()));
+            out.append(",\"critical\":").append(Boolean.toString(span.critical())).append("}}");
+        }
+        for (Map.Entry<String, Integer> thread : threads.entrySet()) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            out.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(thread.getValue().toString());
+            out.append(",\"args\":{\"name\":");
+            appendString(out, thread.getKey());
+            out.append("}}");
+        }
+        out.append("]}");
+    }
+
+    /**
+     * Write the started spans as an OpenTelemetry span tree in the OTLP/JSON encoding, which can be imported by any
+     * OTLP compatible backend.  Spans which have not ended are exported with an end time equal to their start time.
+     *
+     * @param out Where to write the JSON
+     * @throws IOException if the JSON cannot be written
+     */
+    public void writeSpanTree(@Nonnull Appendable out) throws IOException {
+        out.append("{\"resourceSpans\":[{\"resource\":{\"attributes\":[{\"key\":\"service.name\",")
+                .append("\"value\":{\"stringValue\":\"promise\"}}]},")
+                .append("\"scopeSpans\":[{\"scope\":{\"name\":\"com.groupon.promise\"},\"spans\":[");
+        boolean first = true;
+        for (TraceSpan span : spans) {
+            if (!span.started()) {
+                continue;
+            }
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            out.append("{\"traceId\":\"").append(traceId).append('"');
+            out.append(",\"spanId\":\"").append(spanId(span)).append('"');
+            if (span.parent() != null) {
+                out.append(",\"parentSpanId\":\"").append(spanId(span.parent())).append('"');
+            }
+            out.append(",\"name\":");
+            appendString(out, span.name());
+            out.append(",\"kind\":1");
+            out.append(",\"startTimeUnixNano\":\"").append(Long.toString(epochNanos(span.startNanos()))).append('"');
+            long end = span.ended() ? span.endNanos() : span.startNanos();
+            out.append(",\"endTimeUnixNano\":\"").append(Long.toString(epochNanos(end))).append('"');
+            out.append(",\"attributes\":[{\"key\":\"promise.kind\",\"value\":{\"stringValue\":\"")
+                    .append(span.kind().name()).append("\"}},{\"key\":\"promise.critical\",\"value\":{\"boolValue\":")
+                    .append(Boolean.toString(span.critical())).append("}}]");
+            out.append(",\"status\":{\"code\":").append(span.succeeded() ? "1" : "2").append("}}");
+        }
+        out.append("]}]}]}");
+    }
+
+    private long epochNanos(long nanos) {
+        return baseEpochNanos + nanos - baseNanos;
+    }
+
+    private static String spanId(TraceSpan span) {
+        return String.format("%016x", span.id());
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000.0);
+    }
+
+    private static void appendString(Appendable out, String value) throws IOException {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A concurrent map split into independent ConcurrentHashMap shards, selected by the spread hash of the key.  Each
+ * shard resizes and counts its entries on its own, so wide fan-outs updating the dedup store of a chain from many
+ * threads do not all contend on the same table, resize or size counter.
+ * <br>
+ * Used for the pending futures of a chain when the {@value #SHARDS_PROPERTY} system property is greater than one.
+ * The key of a deduplicated call combines the equivalence hash of the function, by default its class, with the hash
+ * of the parameter, so shards are striped by both.  Lookups of existing keys are plain reads of one shard, which is
+ * the fast path for calls whose equivalent call has already completed.
+ *
+ * @since 0.13
+ */
+final class ShardedConcurrentMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+    /**
+     * System property for the number of shards of the pending futures of each chain, rounded up to a power of two.
+     */
+    static final String SHARDS_PROPERTY = "com.groupon.promise.dedup.shards";
+
+    private static final int SHARDS = Integer.getInteger(SHARDS_PROPERTY, 1);
+    private static final int MAX_SHARDS = 1 << 16;
+
+    private final ConcurrentHashMap<K, V>[] shards;
+    private final int mask;
+    private Set<Entry<K, V>> entrySet;
+
+    @SuppressWarnings("unchecked")
+    ShardedConcurrentMap(int shardCount) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and " + MAX_SHARDS);
+        }
+
+        int size = shardCount == 1 ? 1 : Integer.highestOneBit(shardCount - 1) << 1;
+        shards = (ConcurrentHashMap<K, V>[]) new ConcurrentHashMap<?, ?>[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Create the pending futures of a new chain, sharded when configured by the system property.
+     */
+    static ConcurrentMap<PromiseFunctionKey<?>, PromiseMultiFuture<?>> pendingFutures() {
+        return SHARDS > 1 ? new ShardedConcurrentMap<>(SHARDS) : new ConcurrentHashMap<>();
+    }
+
+    int shardCount() {
+        return shards.length;
+    }
+
+    private ConcurrentHashMap<K, V> shard(Object key) {
+        // ConcurrentHashMap uses the low bits to select a bin, so the shard is selected by the high bits.
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x9E3779B9;
+        return shards[(h >>> 16) & mask];
+    }
+
+    @Override
+    public V get(Object key) {
+        return shard(key).get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return shard(key).containsKey(key);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return shard(key).put(key, value);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        ConcurrentHashMap<K, V> shard = shard(key);
+        V existing = shard.get(key);
+        return existing != null ? existing : shard.putIfAbsent(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return shard(key).remove(key);
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        return shard(key).remove(key, value);
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        return shard(key).replace(key, oldValue, newValue);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        return shard(key).replace(key, value);
+    }
+
+    @Override
+    public int size() {
+        long size = 0;
+        for (ConcurrentHashMap<K, V> shard : shards) {
+            size += shard.mappingCount();
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (ConcurrentHashMap<K, V> shard : shards) {
+            if (!shard.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (ConcurrentHashMap<K, V> shard : shards) {
+            shard.clear();
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * The weakly consistent entries of every shard, shard by shard.
+     */
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new Iterator<Entry<K, V>>() {
+                private int next;
+                private Iterator<Entry<K, V>> current = shards[next++].entrySet().iterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext() && next < shards.length) {
+                        current = shards[next++].entrySet().iterator();
+                    }
+                    return current.hasNext();
+                }
+
+                @Override
+                public Entry<K, V> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return current.next();
+                }
+
+                @Override
+                public void remove() {
+                    current.remove();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ShardedConcurrentMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Entry<?, ?> entry = (Entry<?, ?>) o;
+            V value = get(entry.getKey());
+            return value != null && value.equals(entry.getValue());
+        }
+
+        @Override
+        public void clear() {
+            ShardedConcurrentMap.this.clear();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Serializes the elements of a {@link SpillableCollection} to and from the buffers they are spilled into.
+ *
+ * @since 0.13
+ */
+public interface SpillCodec<T> {
+    /**
+     * Write the value at the current position of the buffer.
+     *
+     * @param value The value to write
+     * @param buffer The buffer to write to
+     * @throws java.nio.BufferOverflowException If the value does not fit in the remaining buffer
+     */
+    void encode(T value, ByteBuffer buffer);
+
+    /**
+     * Read a value from the current position of the buffer.
+     *
+     * @param buffer The buffer to read from
+     * @return The value read
+     */
+    T decode(ByteBuffer buffer);
+}
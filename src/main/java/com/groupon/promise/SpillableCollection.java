@@ -0,0 +1,229 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import javax.annotation.Nonnull;
+
+/**
+ * A collection which holds its first elements on the heap and serializes the remainder into off-heap buffers or a
+ * memory mapped temporary file.  It can be returned as the result of a list function so that very large lists flow
+ * through a chain, and are iterated by map, without being held on the heap.
+ * <br>
+ * Elements can only be added and the collection is not thread safe while it is being filled.  Iteration decodes the
+ * spilled elements with the codec, so each iteration returns new instances for them.
+ * <br>
+ * The chain never closes the collection, since several promises may iterate it.  Whoever creates it owns it and should
+ * close it once the chain consuming it has completed, for example from {@link Promise#after()}.
+ *
+ * @since 0.13
+ */
+public class SpillableCollection<T> extends AbstractCollection<T> implements Closeable {
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private final SpillCodec<T> codec;
+    private final int heapThreshold;
+    private final int chunkSize;
+    private final Path directory;
+
+    private final List<T> heap = new ArrayList<>();
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int spilled;
+
+    private FileChannel channel;
+    private long fileSize;
+
+    /**
+     * Create a collection.
+     *
+     * @param codec Serializes the spilled elements
+     * @param heapThreshold The number of elements held on the heap before spilling
+     * @param chunkSize The size in bytes of each spill buffer
+     * @param directory The directory of the memory mapped file, or null to spill into direct buffers
+     */
+    public SpillableCollection(@Nonnull SpillCodec<T> codec, int heapThreshold, int chunkSize, Path directory) {
+        if (codec == null) {
+            throw new IllegalArgumentException("Codec cannot be null");
+        } else if (heapThreshold < 0) {
+            throw new IllegalArgumentException("Heap threshold cannot be negative");
+        } else if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+
+        this.codec = codec;
+        this.heapThreshold = heapThreshold;
+        this.chunkSize = chunkSize;
+        this.directory = directory;
+    }
+
+    /**
+     * Create a collection which spills into direct buffers.
+     *
+     * @param codec Serializes the spilled elements
+     * @param heapThreshold The number of elements held on the heap before spilling
+     * @return An empty collection
+     */
+    public static <T> SpillableCollection<T> offHeap(@Nonnull SpillCodec<T> codec, int heapThreshold) {
+        return new SpillableCollection<>(codec, heapThreshold, DEFAULT_CHUNK_SIZE, null);
+    }
+
+    /**
+     * Create a collection which spills into a memory mapped temporary file, deleted when the collection is closed.
+     *
+     * @param codec Serializes the spilled elements
+     * @param heapThreshold The number of elements held on the heap before spilling
+     * @param directory The directory of the temporary file
+     * @return An empty collection
+     */
+    public static <T> SpillableCollection<T> mapped(@Nonnull SpillCodec<T> codec, int heapThreshold,
+                                                    @Nonnull Path directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory cannot be null");
+        }
+        return new SpillableCollection<>(codec, heapThreshold, DEFAULT_CHUNK_SIZE, directory);
+    }
+
+    @Override
+    public boolean add(T value) {
+        if (chunks.isEmpty() && heap.size() < heapThreshold) {
+            heap.add(value);
+        } else {
+            spill(value);
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return heap.size() + spilled;
+    }
+
+    /**
+     * Whether any elements have been spilled off the heap.
+     *
+     * @return True once the heap threshold has been crossed
+     */
+    public boolean isSpilled() {
+        return spilled > 0;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new SpillIterator();
+    }
+
+    /**
+     * Release the spilled elements and delete the temporary file.  Java offers no way to unmap a buffer, so the memory of
+     * direct and mapped buffers is only returned to the operating system once they are garbage collected.  Until then a
+     * deleted temporary file still occupies disk space.
+     */
+    @Override
+    public void close() throws IOException {
+        heap.clear();
+        chunks.clear();
+        spilled = 0;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void spill(T value) {
+        ByteBuffer chunk = chunks.isEmpty() ? newChunk() : chunks.get(chunks.size() - 1);
+        int start = chunk.position();
+        try {
+            codec.encode(value, chunk);
+        } catch (BufferOverflowException e) {
+            chunk.position(start);
+            if (start == 0) {
+                throw tooLarge(e);
+            }
+            chunk = newChunk();
+            try {
+                codec.encode(value, chunk);
+            } catch (BufferOverflowException tooLarge) {
+                throw tooLarge(tooLarge);
+            }
+        }
+        spilled++;
+    }
+
+    private IllegalArgumentException tooLarge(BufferOverflowException e) {
+        // Drop the chunk the element was written to, which is empty.
+        chunks.remove(chunks.size() - 1);
+        return new IllegalArgumentException("Element does not fit in a chunk of " + chunkSize + " bytes", e);
+    }
+
+    private ByteBuffer newChunk() {
+        ByteBuffer chunk;
+        if (directory == null) {
+            chunk = ByteBuffer.allocateDirect(chunkSize);
+        } else {
+            try {
+                if (channel == null) {
+                    channel = FileChannel.open(Files.createTempFile(directory, "promise", ".spill"),
+                            StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+                }
+                chunk = channel.map(FileChannel.MapMode.READ_WRITE, fileSize, chunkSize);
+                fileSize += chunkSize;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        chunks.add(chunk);
+        return chunk;
+    }
+
+    private class SpillIterator implements Iterator<T> {
+        private final Iterator<T> heapIterator = heap.iterator();
+        private ByteBuffer current;
+        private int chunkIndex;
+
+        @Override
+        public boolean hasNext() {
+            return heapIterator.hasNext() || (current != null && current.hasRemaining()) || chunkIndex < chunks.size();
+        }
+
+        @Override
+        public T next() {
+            if (heapIterator.hasNext()) {
+                return heapIterator.next();
+            }
+
+            while (current == null || !current.hasRemaining()) {
+                if (chunkIndex >= chunks.size()) {
+                    throw new NoSuchElementException();
+                }
+                current = chunks.get(chunkIndex++).duplicate();
+                current.flip();
+            }
+            return codec.decode(current);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reports the chains of a registry which have been pending longer than a threshold.  Each stuck chain is reported
+ * once.  The elements of a mapped list are not listed individually; a stuck element shows as the countdown of the list
+ * promise.  Schedule it to run periodically, for example:
+ *
+ * <pre>
+ * scheduler.scheduleAtFixedRate(new StuckChainDetector(30, TimeUnit.SECONDS), 10, 10, TimeUnit.SECONDS);
+ * </pre>
+ *
+ * @since 0.13
+ */
+public final class StuckChainDetector implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(StuckChainDetector.class);
+
+    private final ChainRegistry registry;
+    private final long thresholdNanos;
+    private final Consumer<ChainSnapshot> reporter;
+    private Set<Long> reported = Collections.emptySet();
+
+    /**
+     * Log the stuck chains of the global registry as warnings.
+     *
+     * @param threshold The age at which a chain is stuck
+     * @param unit The unit of the threshold
+     */
+    public StuckChainDetector(long threshold, @Nonnull TimeUnit unit) {
+        this(ChainRegistry.global(), threshold, unit, snapshot -> LOG.warn("stuckChain {}", snapshot));
+    }
+
+    /**
+     * Pass the stuck chains of the registry to the reporter.
+     *
+     * @param registry The registry to inspect
+     * @param threshold The age at which a chain is stuck
+     * @param unit The unit of the threshold
+     * @param reporter Called once for each stuck chain
+     * @throws IllegalArgumentException if the threshold is negative
+     */
+    public StuckChainDetector(@Nonnull ChainRegistry registry, long threshold, @Nonnull TimeUnit unit,
+                              @Nonnull Consumer<ChainSnapshot> reporter) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold cannot be negative");
+        }
+        this.registry = registry;
+        this.thresholdNanos = unit.toNanos(threshold);
+        this.reporter = reporter;
+    }
+
+    @Override
+    public synchronized void run() {
+        // Only the chains still stuck are remembered, so the set never outgrows the registry.
+        Set<Long> stuck = new HashSet<>();
+        for (ChainSnapshot snapshot : registry.pendingLongerThan(thresholdNanos, TimeUnit.NANOSECONDS)) {
+            stuck.add(snapshot.id());
+            if (!reported.contains(snapshot.id())) {
+                reporter.accept(snapshot);
+            }
+        }
+        reported = stuck;
+    }
+}
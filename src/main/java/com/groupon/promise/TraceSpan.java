@@ -0,0 +1,200 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+/**
+ * A timed record of a promise or a stage executed while tracing a chain with {@link PromiseTracer}.  Promise spans
+ * run from the promise being fulfilled or rejected until its whole subtree is complete, and stage spans run from the
+ * function being called until its future completes.
+ *
+ * @since 0.13
+ */
+public final class TraceSpan {
+    /**
+     * What a span records.
+     */
+    public enum Kind {
+        /** A promise in the chain, from being fulfilled or rejected until its subtree is complete. */
+        PROMISE,
+        /** A copy of a promise created for an element of a list. */
+        COPY,
+        /** A function applied to the outcome of a promise. */
+        STAGE
+    }
+
+    private final PromiseTracer tracer;
+    private final long id;
+    private final TraceSpan parent;
+    private final Kind kind;
+    private volatile String name;
+
+    private volatile long startNanos;
+    private volatile long endNanos;
+    private volatile String threadName;
+    private volatile boolean succeeded;
+    private volatile boolean critical;
+
+    TraceSpan(PromiseTracer tracer, long id, TraceSpan parent, Kind kind, String name) {
+        this.tracer = tracer;
+        this.id = id;
+        this.parent = parent;
+        this.kind = kind;
+        this.name = name;
+    }
+
+    TraceSpan child(Kind childKind, String childName) {
+        return tracer.newSpan(this, childKind, childName);
+    }
+
+    void start(long nanos, String startName) {
+        name = startName;
+        start(nanos);
+    }
+
+    void start(long nanos) {
+        threadName = Thread.currentThread().getName();
+        startNanos = nanos;
+    }
+
+    void end(boolean success) {
+        succeeded = success;
+        endNanos = System.nanoTime();
+        if (parent == null) {
+            tracer.complete(this);
+        }
+    }
+
+    void critical(boolean value) {
+        critical = value;
+    }
+
+    PromiseTracer tracer() {
+        return tracer;
+    }
+
+    /**
+     * The identifier of the span, unique within its tracer.
+     *
+     * @return The identifier
+     */
+    public long id() {
+        return id;
+    }
+
+    /**
+     * The span which caused this span to start.
+     *
+     * @return The parent, or null for the root promise
+     */
+    public TraceSpan parent() {
+        return parent;
+    }
+
+    /**
+     * What the span records.
+     *
+     * @return The kind of span
+     */
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * The name of the promise, or the stage name as reported to {@link com.groupon.promise.metrics.PromiseMetrics}.
+     *
+     * @return The name
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Whether the span has started.
+     *
+     * @return True once started
+     */
+    public boolean started() {
+        return startNanos != 0L;
+    }
+
+    /**
+     * Whether the span has ended.
+     *
+     * @return True once ended
+     */
+    public boolean ended() {
+        return endNanos != 0L;
+    }
+
+    /**
+     * The {@link System#nanoTime()} at which the span started.
+     *
+     * @return The start time, or 0 if not started
+     */
+    public long startNanos() {
+        return startNanos;
+    }
+
+    /**
+     * The {@link System#nanoTime()} at which the span ended.
+     *
+     * @return The end time, or 0 if not ended
+     */
+    public long endNanos() {
+        return endNanos;
+    }
+
+    /**
+     * The duration of the span.
+     *
+     * @return The nanoseconds from start to end, or 0 if not ended
+     */
+    public long durationNanos() {
+        return ended() ? endNanos - startNanos : 0L;
+    }
+
+    /**
+     * The thread on which the span started.
+     *
+     * @return The thread name, or null if not started
+     */
+    public String threadName() {
+        return threadName;
+    }
+
+    /**
+     * Whether the promise completed successfully, or the function's future succeeded.
+     *
+     * @return True on success
+     */
+    public boolean succeeded() {
+        return succeeded;
+    }
+
+    /**
+     * Whether the span is on the critical path of the completed chain.
+     *
+     * @return True if on the critical path
+     */
+    public boolean critical() {
+        return critical;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + name + " (" + durationNanos() + "ns)";
+    }
+}
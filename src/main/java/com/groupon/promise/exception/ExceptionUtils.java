@@ -40,6 +40,10 @@ public final class ExceptionUtils {
      * If expectedCauses is not passed, the first exception in the suppressed stack will be returned.
      * In any other case, the first exception in the suppressed stack matching any of the provided expected types will
      * be returned.
+     * <br>
+     * For a PromiseException the failure summary is used instead of the suppressed exceptions, so the lookup does not
+     * depend on the number of failures.  Failures added directly with addSuppressed are not in the summary and are
+     * never matched.
      *
      * @param throwable          The trapped exception
      * @param expectedCauses The array of expected exception classes
@@ -50,6 +54,17 @@ public final class ExceptionUtils {
     public static Throwable getMostSignificantCause(Throwable throwable, Class<? extends Throwable>... expectedCauses) {
         Throwable mostSignificantCause;
 
+        FailureSummary summary = throwable instanceof PromiseException ?
+                ((PromiseException) throwable).getFailureSummary() : null;
+        if (summary != null && summary.total() > 0) {
+            if (expectedCauses == null || expectedCauses.length == 0) {
+                return summary.first();
+            }
+
+            Throwable expectedCause = summary.first(expectedCauses);
+            return expectedCause != null ? expectedCause : summary.first();
+        }
+
         Throwable[] suppressedExceptions = throwable.getSuppressed();
         if (suppressedExceptions != null && suppressedExceptions.length > 0) {
             // Initialize with the first in the list.
@@ -0,0 +1,134 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.exception;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Collects the failures of an aggregate with bounded retention.  The first failures are kept along with a reservoir
+ * sample of the remainder, while every failure is counted in the failure summary.  The memory held for failure
+ * reporting is therefore constant regardless of how many promises fail.
+ *
+ * @since 0.13
+ */
+public final class FailureCollector {
+    /**
+     * System property for the number of leading failures retained by default.
+     */
+    public static final String RETAIN_FIRST_PROPERTY = "com.groupon.promise.exception.retainFirst";
+
+    /**
+     * System property for the number of later failures sampled by default.
+     */
+    public static final String SAMPLE_SIZE_PROPERTY = "com.groupon.promise.exception.sampleSize";
+
+    private static final int RETAIN_FIRST = Integer.getInteger(RETAIN_FIRST_PROPERTY, 1000);
+    private static final int SAMPLE_SIZE = Integer.getInteger(SAMPLE_SIZE_PROPERTY, 100);
+
+    private final int retainFirst;
+    private final int sampleSize;
+    private final List<Throwable> first = new ArrayList<>();
+    private final List<Throwable> sample = new ArrayList<>();
+    private final FailureSummary summary = new FailureSummary();
+    private long offered;
+    private long dropped;
+
+    public FailureCollector() {
+        this(RETAIN_FIRST, SAMPLE_SIZE);
+    }
+
+    /**
+     * Create a collector with the specified retention.
+     *
+     * @param retainFirst The number of leading failures to retain
+     * @param sampleSize The number of later failures to sample
+     */
+    public FailureCollector(int retainFirst, int sampleSize) {
+        if (retainFirst < 0) {
+            throw new IllegalArgumentException("Retained failures cannot be negative");
+        } else if (sampleSize < 0) {
+            throw new IllegalArgumentException("Sample size cannot be negative");
+        }
+
+        this.retainFirst = retainFirst;
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Add a failure.  The failures of a nested PromiseException are added individually, at any depth.
+     *
+     * @param failure The failure to add
+     */
+    public synchronized void add(Throwable failure) {
+        if (failure instanceof PromiseException) {
+            PromiseException nested = (PromiseException) failure;
+            FailureSummary nestedSummary = nested.getFailureSummary();
+            if (nestedSummary != null) {
+                summary.merge(nestedSummary);
+            }
+            for (Throwable nestedFailure : nested.getSuppressed()) {
+                if (nestedFailure instanceof PromiseException) {
+                    // Added with addSuppressed, so its failures are not in the nested summary.
+                    add(nestedFailure);
+                } else {
+                    if (nestedSummary == null) {
+                        summary.record(nestedFailure);
+                    }
+                    retain(nestedFailure);
+                }
+            }
+            dropped += nested.getDroppedFailureCount();
+        } else {
+            summary.record(failure);
+            retain(failure);
+        }
+    }
+
+    /**
+     * Create the aggregate exception from the failures collected.
+     *
+     * @return A PromiseException holding the retained failures as suppressed exceptions
+     */
+    public synchronized PromiseException toException() {
+        PromiseException exception = new PromiseException(summary, dropped);
+        for (Throwable failure : first) {
+            exception.addSuppressed(failure);
+        }
+        for (Throwable failure : sample) {
+            exception.addSuppressed(failure);
+        }
+        return exception;
+    }
+
+    private void retain(Throwable failure) {
+        offered++;
+        if (first.size() < retainFirst) {
+            first.add(failure);
+        } else if (sample.size() < sampleSize) {
+            sample.add(failure);
+        } else {
+            // Reservoir sampling: each later failure replaces a sampled one with probability sampleSize / seen.
+            long seen = offered - retainFirst;
+            long index = ThreadLocalRandom.current().nextLong(seen);
+            if (index < sampleSize) {
+                sample.set((int) index, failure);
+            }
+            dropped++;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.exception;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An index of the failures aggregated by a PromiseException.  For each exception class it tracks the number of
+ * failures along with the first instance and its position, so lookups by class do not need to scan every suppressed
+ * exception.
+ *
+ * @since 0.13
+ */
+public final class FailureSummary {
+    private final Map<Class<? extends Throwable>, Entry> entries = new LinkedHashMap<>();
+    private int total;
+
+    FailureSummary() {
+    }
+
+    void record(Throwable failure) {
+        Entry entry = entries.get(failure.getClass());
+        if (entry == null) {
+            entries.put(failure.getClass(), new Entry(failure, total));
+        } else {
+            entry.count++;
+        }
+        total++;
+    }
+
+    void merge(FailureSummary other) {
+        for (Map.Entry<Class<? extends Throwable>, Entry> otherEntry : other.entries.entrySet()) {
+            Entry entry = entries.get(otherEntry.getKey());
+            if (entry == null) {
+                entry = new Entry(otherEntry.getValue().first, total + otherEntry.getValue().position);
+                entry.count = otherEntry.getValue().count;
+                entries.put(otherEntry.getKey(), entry);
+            } else {
+                entry.count += otherEntry.getValue().count;
+            }
+        }
+        total += other.total;
+    }
+
+    /**
+     * The number of failures recorded.
+     *
+     * @return The total number of failures
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * The number of failures of exactly the specified class.
+     *
+     * @param type The exception class
+     * @return The number of failures of the class
+     */
+    public int count(Class<? extends Throwable> type) {
+        Entry entry = entries.get(type);
+        return entry != null ? entry.count : 0;
+    }
+
+    /**
+     * The number of failures for each exception class, in the order each class first failed.
+     *
+     * @return The failure counts by class
+     */
+    public Map<Class<? extends Throwable>, Integer> counts() {
+        Map<Class<? extends Throwable>, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<Class<? extends Throwable>, Entry> entry : entries.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().count);
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * The first failure recorded.
+     *
+     * @return The first failure or null if none were recorded
+     */
+    public Throwable first() {
+        return entries.isEmpty() ? null : entries.values().iterator().next().first;
+    }
+
+    /**
+     * The earliest failure of exactly one of the specified classes.
+     *
+     * @param types The exception classes
+     * @return The earliest matching failure or null if none match
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public final Throwable first(Class<? extends Throwable>... types) {
+        Entry earliest = null;
+        for (Class<? extends Throwable> type : types) {
+            Entry entry = entries.get(type);
+            if (entry != null && (earliest == null || entry.position < earliest.position)) {
+                earliest = entry;
+            }
+        }
+        return earliest != null ? earliest.first : null;
+    }
+
+    private static final class Entry {
+        private final Throwable first;
+        private final int position;
+        private int count = 1;
+
+        Entry(Throwable first, int position) {
+            this.first = first;
+            this.position = position;
+        }
+    }
+}
@@ -26,6 +26,16 @@ public class IllegalPromiseException extends Exception {
     private static final long serialVersionUID = 4697295589330542015L;
 
     public IllegalPromiseException() {
-        super(MESSAGE);
+        this(PromiseException.isWritableStackTrace());
+    }
+
+    /**
+     * Create an IllegalPromiseException which only captures a stack trace when requested.
+     *
+     * @param writableStackTrace Whether the stack trace should be captured
+     * @since 0.13
+     */
+    public IllegalPromiseException(boolean writableStackTrace) {
+        super(MESSAGE, null, true, writableStackTrace);
     }
 }
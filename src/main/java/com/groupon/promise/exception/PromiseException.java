@@ -22,10 +22,117 @@ package com.groupon.promise.exception;
  * @since 0.1
  */
 public class PromiseException extends Exception {
+    /**
+     * System property which, when true, stops promise exceptions from capturing a stack trace by default.
+     *
+     * @since 0.13
+     */
+    public static final String STACKLESS_PROPERTY = "com.groupon.promise.exception.stackless";
+
     private static final String MESSAGE = "One or more promises failed";
     private static final long serialVersionUID = 5135446156327606813L;
 
+    private static volatile boolean writableStackTrace = !Boolean.getBoolean(STACKLESS_PROPERTY);
+
+    private transient FailureSummary summary = new FailureSummary();
+    private long droppedFailures;
+
     public PromiseException() {
-        super(MESSAGE);
+        this(writableStackTrace);
+    }
+
+    /**
+     * Create a PromiseException which only captures a stack trace when requested.  The suppressed failures carry their
+     * own stack traces, so the trace of the aggregate is rarely useful and filling it in is the dominant cost of a
+     * failure.
+     *
+     * @param writableStackTrace Whether the stack trace should be captured
+     * @since 0.13
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public PromiseException(boolean writableStackTrace) {
+        super(MESSAGE, null, true, writableStackTrace);
+    }
+
+    PromiseException(FailureSummary summary, long droppedFailures) {
+        this(writableStackTrace);
+        this.summary = summary;
+        this.droppedFailures = droppedFailures;
+    }
+
+    /**
+     * Add a failure to this aggregate.  The failures of a nested PromiseException are added individually, at any depth,
+     * and each failure is indexed in the failure summary.
+     *
+     * @param failure The failure to add
+     * @since 0.13
+     */
+    public void addFailure(Throwable failure) {
+        if (failure instanceof PromiseException) {
+            PromiseException nested = (PromiseException) failure;
+            FailureSummary nestedSummary = nested.getFailureSummary();
+            if (summary != null && nestedSummary != null) {
+                summary.merge(nestedSummary);
+            }
+            for (Throwable nestedFailure : nested.getSuppressed()) {
+                if (nestedFailure instanceof PromiseException) {
+                    // Added with addSuppressed, so its failures are not in the nested summary.
+                    addFailure(nestedFailure);
+                } else {
+                    addSuppressed(nestedFailure);
+                    if (summary != null && nestedSummary == null) {
+                        summary.record(nestedFailure);
+                    }
+                }
+            }
+            droppedFailures += nested.getDroppedFailureCount();
+        } else {
+            addSuppressed(failure);
+            if (summary != null) {
+                summary.record(failure);
+            }
+        }
+    }
+
+    /**
+     * The number of failures counted in the failure summary but not retained as suppressed exceptions.
+     *
+     * @return The number of dropped failures
+     * @since 0.13
+     */
+    public long getDroppedFailureCount() {
+        return droppedFailures;
+    }
+
+    /**
+     * The index of the failures added with {@link #addFailure(Throwable)}.  Failures added directly with
+     * addSuppressed are not included.
+     *
+     * @return The failure summary, or null if this exception was deserialized
+     * @since 0.13
+     */
+    public FailureSummary getFailureSummary() {
+        return summary;
+    }
+
+    /**
+     * Whether promise exceptions created without an explicit policy capture a stack trace.
+     *
+     * @return True unless disabled by the system property or {@link #setWritableStackTrace(boolean)}
+     * @since 0.13
+     */
+    public static boolean isWritableStackTrace() {
+        return writableStackTrace;
+    }
+
+    /**
+     * Set whether promise exceptions created without an explicit policy capture a stack trace.  This applies to both
+     * PromiseException and IllegalPromiseException.
+     *
+     * @param value False to create stackless exceptions
+     * @since 0.13
+     */
+    public static void setWritableStackTrace(boolean value) {
+        writableStackTrace = value;
     }
 }
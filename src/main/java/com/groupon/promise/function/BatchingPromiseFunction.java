@@ -0,0 +1,162 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.function;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import javax.annotation.Nonnull;
+
+import com.groupon.promise.AsyncPromiseFunction;
+import com.groupon.promise.ComparablePromiseFunction;
+import com.groupon.promise.DefaultPromiseFuture;
+import com.groupon.promise.PromiseFuture;
+
+/**
+ * Coalesces the keys passed to this function into a single call of a bulk function.  Keys are collected until either
+ * the batch reaches the maximum size or the tick executor runs the pending flush, whichever comes first.  The values
+ * returned by the bulk function are then fanned out to the future returned for each key.
+ *
+ * Example:
+ *
+ * <pre>
+ * {@code
+ * BatchingPromiseFunction<Long, Deal> getDeal = new BatchingPromiseFunction<>(dealClient::getDeals, eventLoop, 100);
+ * promiseList.map().thenAsync(getDeal);
+ * }
+ * </pre>
+ *
+ * When the chain runs on the tick executor, for example an event loop, every key issued while dispatching the list is
+ * collected before the flush runs.  Keys missing from the map returned by the bulk function are fulfilled with null.
+ *
+ * @since 0.13
+ */
+public class BatchingPromiseFunction<K, V> implements AsyncPromiseFunction<K, V>, ComparablePromiseFunction {
+    private final AsyncPromiseFunction<Collection<K>, Map<K, V>> bulkFunction;
+    private final Executor tick;
+    private final int maxBatchSize;
+
+    private Map<K, List<PromiseFuture<V>>> batch = new LinkedHashMap<>();
+
+    /**
+     * Create a batching function.
+     *
+     * @param bulkFunction Function that resolves a batch of keys to their values
+     * @param tick Executor used to flush a partial batch after the current task completes
+     * @param maxBatchSize The maximum number of distinct keys passed to a single bulk call
+     * @throws IllegalArgumentException if a parameter is null or the batch size is less than 1
+     */
+    public BatchingPromiseFunction(@Nonnull AsyncPromiseFunction<Collection<K>, Map<K, V>> bulkFunction,
+                                   @Nonnull Executor tick, int maxBatchSize) {
+        if (bulkFunction == null) {
+            throw new IllegalArgumentException("Bulk function cannot be null");
+        } else if (tick == null) {
+            throw new IllegalArgumentException("Tick executor cannot be null");
+        } else if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be greater than 0");
+        }
+
+        this.bulkFunction = bulkFunction;
+        this.tick = tick;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public PromiseFuture<V> handle(K key) {
+        PromiseFuture<V> future = new DefaultPromiseFuture<>();
+        Map<K, List<PromiseFuture<V>>> fullBatch = null;
+        boolean scheduleFlush;
+
+        synchronized (this) {
+            scheduleFlush = batch.isEmpty();
+            batch.computeIfAbsent(key, k -> new ArrayList<>(1)).add(future);
+            if (batch.size() >= maxBatchSize) {
+                fullBatch = batch;
+                batch = new LinkedHashMap<>();
+            }
+        }
+
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        } else if (scheduleFlush) {
+            tick.execute(this::flush);
+        }
+
+        return future;
+    }
+
+    /**
+     * Issue the bulk call for any keys which are waiting on the next tick.
+     */
+    public void flush() {
+        Map<K, List<PromiseFuture<V>>> pendingBatch;
+        synchronized (this) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            pendingBatch = batch;
+            batch = new LinkedHashMap<>();
+        }
+
+        dispatch(pendingBatch);
+    }
+
+    private void dispatch(Map<K, List<PromiseFuture<V>>> pendingBatch) {
+        try {
+            PromiseFuture<? extends Map<K, V>> future = bulkFunction.handle(
+                    Collections.unmodifiableCollection(pendingBatch.keySet()));
+            if (future != null) {
+                future.setHandler(event -> {
+                    if (event.succeeded()) {
+                        fulfill(pendingBatch, event.result());
+                    } else {
+                        reject(pendingBatch, event.cause());
+                    }
+                });
+            } else {
+                fulfill(pendingBatch, null);
+            }
+        } catch (Throwable t) {
+            reject(pendingBatch, t);
+        }
+    }
+
+    private void fulfill(Map<K, List<PromiseFuture<V>>> pendingBatch, Map<K, V> values) {
+        for (Map.Entry<K, List<PromiseFuture<V>>> entry : pendingBatch.entrySet()) {
+            V value = values != null ? values.get(entry.getKey()) : null;
+            for (PromiseFuture<V> future : entry.getValue()) {
+                future.setResult(value);
+            }
+        }
+    }
+
+    private void reject(Map<K, List<PromiseFuture<V>>> pendingBatch, Throwable cause) {
+        for (List<PromiseFuture<V>> futures : pendingBatch.values()) {
+            for (PromiseFuture<V> future : futures) {
+                future.setFailure(cause);
+            }
+        }
+    }
+
+    @Override
+    public boolean equivalent(Object o) {
+        return this == o;
+    }
+}
@@ -17,8 +17,8 @@ package com.groupon.promise.function;
 
 import com.groupon.promise.AsyncPromiseFunction;
 import com.groupon.promise.ComparablePromiseFunction;
-import com.groupon.promise.DefaultPromiseFuture;
 import com.groupon.promise.PromiseFuture;
+import com.groupon.promise.PromiseFutures;
 import com.groupon.promise.SyncPromiseFunction;
 
 /**
@@ -36,13 +36,47 @@ public class PromiseFunctionResult<T, O> implements AsyncPromiseFunction<T, O>,
 
     @Override
     public PromiseFuture<O> handle(T data) {
-        PromiseFuture<O> future = new DefaultPromiseFuture<>();
         try {
-            future.setResult(promiseFunction.handle(data));
+            return PromiseFutures.completed(promiseFunction.handle(data));
         } catch (Throwable t) {
-            future.setFailure(t);
+            return PromiseFutures.failed(t);
         }
-        return future;
+    }
+
+    /**
+     * Apply the synchronous function directly, without wrapping the outcome in a future.
+     *
+     * @param data Data fulfilled on the Promise this function was applied to
+     * @return The result of the synchronous function
+     * @throws Throwable The error thrown by the synchronous function
+     * @since 0.13
+     */
+    public O handleSync(T data) throws Throwable {
+        return promiseFunction.handle(data);
+    }
+
+    /**
+     * The class of the wrapped synchronous function.
+     *
+     * @return The function class, or this class if there is no function
+     * @since 0.13
+     */
+    public final Class<?> functionClass() {
+        return promiseFunction != null ? promiseFunction.getClass() : getClass();
+    }
+
+    /**
+     * Equivalence is delegated to the wrapped function, so the hash is the hash of the wrapped function.
+     *
+     * @return The equivalence hash of the wrapped function, or the hash code of its class
+     * @since 0.13
+     */
+    @Override
+    public final int equivalenceHash() {
+        if (promiseFunction instanceof ComparablePromiseFunction) {
+            return ((ComparablePromiseFunction) promiseFunction).equivalenceHash();
+        }
+        return functionClass().hashCode();
     }
 
     @Override
@@ -19,8 +19,8 @@ import java.util.Collection;
 
 import com.groupon.promise.AsyncPromiseListFunction;
 import com.groupon.promise.ComparablePromiseFunction;
-import com.groupon.promise.DefaultPromiseFuture;
 import com.groupon.promise.PromiseFuture;
+import com.groupon.promise.PromiseFutures;
 import com.groupon.promise.SyncPromiseListFunction;
 
 /**
@@ -39,13 +39,35 @@ public class PromiseListFunctionResult<T, O> implements AsyncPromiseListFunction
     @Override
     @SuppressWarnings("unchecked")
     public PromiseFuture<Collection<O>> handle(T data) {
-        PromiseFuture<Collection<O>> future = new DefaultPromiseFuture<>();
         try {
-            future.setResult((Collection<O>) promiseFunction.handle(data));
+            return PromiseFutures.completed((Collection<O>) promiseFunction.handle(data));
         } catch (Throwable t) {
-            future.setFailure(t);
+            return PromiseFutures.failed(t);
         }
-        return future;
+    }
+
+    /**
+     * The class of the wrapped synchronous function.
+     *
+     * @return The function class, or this class if there is no function
+     * @since 0.13
+     */
+    public final Class<?> functionClass() {
+        return promiseFunction != null ? promiseFunction.getClass() : getClass();
+    }
+
+    /**
+     * Equivalence is delegated to the wrapped function, so the hash is the hash of the wrapped function.
+     *
+     * @return The equivalence hash of the wrapped function, or the hash code of its class
+     * @since 0.13
+     */
+    @Override
+    public final int equivalenceHash() {
+        if (promiseFunction instanceof ComparablePromiseFunction) {
+            return ((ComparablePromiseFunction) promiseFunction).equivalenceHash();
+        }
+        return functionClass().hashCode();
     }
 
     @Override
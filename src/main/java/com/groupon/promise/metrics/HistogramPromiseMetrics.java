@@ -0,0 +1,67 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PromiseMetrics which keep latency histograms and outcome counters in memory for each stage.  Install it through
+ * the ServiceLoader and read it back with {@code (HistogramPromiseMetrics) PromiseMetrics.installed()}.
+ *
+ * @since 0.13
+ */
+public class HistogramPromiseMetrics implements PromiseMetrics {
+    private final ConcurrentHashMap<String, StageMetrics> stages = new ConcurrentHashMap<>();
+
+    @Override
+    public void stageCompleted(String stage, long queueNanos, long executionNanos, boolean succeeded) {
+        stage(stage).stageCompleted(queueNanos, executionNanos, succeeded);
+    }
+
+    @Override
+    public void dedup(String stage, boolean hit) {
+        stage(stage).dedup(hit);
+    }
+
+    /**
+     * The metrics recorded for a stage.
+     *
+     * @param stage The name of the stage
+     * @return The metrics, or null if the stage has not run
+     */
+    public StageMetrics get(String stage) {
+        return stages.get(stage);
+    }
+
+    /**
+     * The metrics recorded for every stage.
+     *
+     * @return The metrics by stage name
+     */
+    public Map<String, StageMetrics> stages() {
+        return Collections.unmodifiableMap(stages);
+    }
+
+    private StageMetrics stage(String stage) {
+        StageMetrics metrics = stages.get(stage);
+        if (metrics == null) {
+            metrics = stages.computeIfAbsent(stage, key -> new StageMetrics());
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.metrics;
+
+/**
+ * Instrumentation for the stages of a promise chain.  An implementation is installed by listing it in
+ * {@code META-INF/services/com.groupon.promise.metrics.PromiseMetrics}; the first one found by the ServiceLoader is
+ * used for every chain.  Without one the chain uses {@link #NOOP}, and since the installed instance is a constant the
+ * JIT removes the instrumentation entirely.
+ * <br>
+ * A stage is the function applied by then, keyed by the name of the promise it fulfills or the class of the function.
+ * Implementations are called from the threads completing the chain and must be thread safe.
+ *
+ * @since 0.13
+ */
+public interface PromiseMetrics {
+    /**
+     * Metrics which record nothing.
+     */
+    PromiseMetrics NOOP = new PromiseMetrics() {
+        @Override
+        public boolean enabled() {
+            return false;
+        }
+
+        @Override
+        public void stageCompleted(String stage, long queueNanos, long executionNanos, boolean succeeded) {
+        }
+
+        @Override
+        public void dedup(String stage, boolean hit) {
+        }
+    };
+
+    /**
+     * Whether any metrics should be recorded.  Checked before timing a stage.
+     *
+     * @return True if the metrics are recorded
+     */
+    default boolean enabled() {
+        return true;
+    }
+
+    /**
+     * Record the completion of a stage.
+     *
+     * @param stage The name of the stage
+     * @param queueNanos Time from the previous promise completing until the function was called
+     * @param executionNanos Time from the function being called until its future completed
+     * @param succeeded Whether the function succeeded
+     */
+    void stageCompleted(String stage, long queueNanos, long executionNanos, boolean succeeded);
+
+    /**
+     * Record whether a deduplicated stage joined an equivalent pending call.
+     *
+     * @param stage The name of the stage
+     * @param hit True if an equivalent call was pending, false if this call was dispatched
+     */
+    void dedup(String stage, boolean hit);
+
+    /**
+     * The metrics used by every promise chain.
+     *
+     * @return The installed metrics, or {@link #NOOP}
+     */
+    static PromiseMetrics installed() {
+        return PromiseMetricsLoader.INSTALLED;
+    }
+}
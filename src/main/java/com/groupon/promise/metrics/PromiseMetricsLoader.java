@@ -0,0 +1,36 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.metrics;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * Loads the installed PromiseMetrics once, so the instance is a constant for the JIT.
+ *
+ * @since 0.13
+ */
+final class PromiseMetricsLoader {
+    static final PromiseMetrics INSTALLED = load();
+
+    private PromiseMetricsLoader() {
+    }
+
+    private static PromiseMetrics load() {
+        Iterator<PromiseMetrics> metrics = ServiceLoader.load(PromiseMetrics.class).iterator();
+        return metrics.hasNext() ? metrics.next() : PromiseMetrics.NOOP;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latency and outcome metrics of a single stage.
+ *
+ * @since 0.13
+ */
+public final class StageMetrics {
+    private final Histogram queueTime = new Histogram();
+    private final Histogram executionTime = new Histogram();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dedupHits = new LongAdder();
+    private final LongAdder dedupMisses = new LongAdder();
+
+    void stageCompleted(long queueNanos, long executionNanos, boolean success) {
+        queueTime.record(queueNanos);
+        executionTime.record(executionNanos);
+        if (success) {
+            succeeded.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    void dedup(boolean hit) {
+        if (hit) {
+            dedupHits.increment();
+        } else {
+            dedupMisses.increment();
+        }
+    }
+
+    /**
+     * Nanoseconds from the previous promise completing until the function was called.
+     *
+     * @return The queue time histogram
+     */
+    public Histogram queueTime() {
+        return queueTime;
+    }
+
+    /**
+     * Nanoseconds from the function being called until its future completed.
+     *
+     * @return The execution time histogram
+     */
+    public Histogram executionTime() {
+        return executionTime;
+    }
+
+    /**
+     * The number of times the stage succeeded.
+     *
+     * @return The count
+     */
+    public long succeeded() {
+        return succeeded.sum();
+    }
+
+    /**
+     * The number of times the stage failed.
+     *
+     * @return The count
+     */
+    public long failed() {
+        return failed.sum();
+    }
+
+    /**
+     * The number of calls which joined an equivalent pending call.
+     *
+     * @return The count
+     */
+    public long dedupHits() {
+        return dedupHits.sum();
+    }
+
+    /**
+     * The number of deduplicated calls which were dispatched.
+     *
+     * @return The count
+     */
+    public long dedupMisses() {
+        return dedupMisses.sum();
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the AffinityExecutor.
+ *
+ * @since 0.13
+ */
+public class AffinityExecutorTest {
+    private List<Runnable> eventLoopTasks;
+    private AffinityExecutor executor;
+
+    @Before
+    public void setUp() {
+        eventLoopTasks = new ArrayList<>();
+        executor = new AffinityExecutor(eventLoopTasks::add);
+    }
+
+    @Test
+    public void testTasksAreDrainedInBatch() {
+        List<String> executed = new ArrayList<>();
+
+        executor.execute(() -> executed.add("one"));
+        executor.execute(() -> executed.add("two"));
+        executor.execute(() -> executed.add("three"));
+
+        assertEquals(1, eventLoopTasks.size());
+        assertTrue(executed.isEmpty());
+
+        eventLoopTasks.remove(0).run();
+
+        assertEquals(Arrays.asList("one", "two", "three"), executed);
+        assertTrue(eventLoopTasks.isEmpty());
+    }
+
+    @Test
+    public void testTaskQueuedAfterDrainIsScheduledAgain() {
+        List<String> executed = new ArrayList<>();
+
+        executor.execute(() -> executed.add("one"));
+        eventLoopTasks.remove(0).run();
+        executor.execute(() -> executed.add("two"));
+
+        assertEquals(1, eventLoopTasks.size());
+        eventLoopTasks.remove(0).run();
+
+        assertEquals(Arrays.asList("one", "two"), executed);
+    }
+
+    @Test
+    public void testEventLoopThreadIsDetectedWhileDraining() {
+        AtomicBoolean inEventLoop = new AtomicBoolean(false);
+
+        assertFalse(executor.inEventLoop());
+        executor.execute(() -> inEventLoop.set(executor.inEventLoop()));
+        eventLoopTasks.remove(0).run();
+
+        assertTrue(inEventLoop.get());
+    }
+
+    @Test
+    public void testRunInlineOnEventLoop() {
+        AffinityExecutor inline = new AffinityExecutor(eventLoopTasks::add, () -> true);
+        List<String> executed = new ArrayList<>();
+
+        inline.run(() -> executed.add("one"));
+
+        assertEquals(Arrays.asList("one"), executed);
+        assertTrue(eventLoopTasks.isEmpty());
+    }
+
+    @Test
+    public void testRunQueuedOffEventLoop() {
+        AffinityExecutor queued = new AffinityExecutor(eventLoopTasks::add, () -> false);
+        List<String> executed = new ArrayList<>();
+
+        queued.run(() -> executed.add("one"));
+
+        assertTrue(executed.isEmpty());
+        assertEquals(1, eventLoopTasks.size());
+    }
+
+    @Test
+    public void testFailingTaskDoesNotStopBatch() {
+        List<String> executed = new ArrayList<>();
+
+        executor.execute(() -> {
+            throw new IllegalStateException("failure");
+        });
+        executor.execute(() -> executed.add("two"));
+        eventLoopTasks.remove(0).run();
+
+        assertEquals(Arrays.asList("two"), executed);
+    }
+
+    @Test
+    public void testErrorDoesNotStopLaterDrains() {
+        List<String> executed = new ArrayList<>();
+
+        executor.execute(() -> {
+            throw new AssertionError("failure");
+        });
+        executor.execute(() -> executed.add("two"));
+        try {
+            eventLoopTasks.remove(0).run();
+            fail("Expected the error to propagate");
+        } catch (AssertionError e) {
+            assertEquals("failure", e.getMessage());
+        }
+
+        assertEquals(1, eventLoopTasks.size());
+        eventLoopTasks.remove(0).run();
+        assertEquals(Arrays.asList("two"), executed);
+
+        executor.execute(() -> executed.add("three"));
+        assertEquals(1, eventLoopTasks.size());
+        eventLoopTasks.remove(0).run();
+        assertEquals(Arrays.asList("two", "three"), executed);
+    }
+
+    @Test
+    public void testEventLoopUnknownBeforeFirstDrain() {
+        List<String> executed = new ArrayList<>();
+
+        executor.run(() -> executed.add("one"));
+
+        assertTrue(executed.isEmpty());
+        assertEquals(1, eventLoopTasks.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullEventLoop() {
+        new AffinityExecutor(null);
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Test the registry of pending chains and the stuck chain detector.
+ *
+ * @since 0.13
+ */
+public class ChainRegistryTest {
+    private final ChainRegistry registry = new ChainRegistry();
+
+    @Test
+    public void testSnapshotOfStuckChain() {
+        DefaultPromiseFuture<String> never = new DefaultPromiseFuture<>();
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        promise.name("root");
+        promise.thenSync(String::length).name("length");
+        promise.then(new PendingFunction(never)).name("pending");
+        registry.register(promise);
+
+        promise.fulfill("value");
+
+        List<ChainSnapshot> snapshots = registry.snapshot();
+        assertEquals(1, snapshots.size());
+        ChainSnapshot snapshot = snapshots.get(0);
+        assertEquals("root", snapshot.name());
+        assertEquals(Collections.singletonList("pending"), snapshot.pendingStages());
+        assertEquals(1, snapshot.nodes().size());
+        assertEquals(1, snapshot.nodes().get(0).countdown());
+        assertEquals(0, snapshot.nodes().get(0).depth());
+        assertEquals(1, snapshot.pendingFutureKeys().size());
+        assertTrue(snapshot.pendingFutureKeys().get(0), snapshot.pendingFutureKeys().get(0).endsWith("(value)"));
+
+        never.setResult("done");
+
+        assertEquals(0, registry.size());
+        assertTrue(registry.snapshot().isEmpty());
+    }
+
+    @Test
+    public void testNestedPendingStage() {
+        DefaultPromiseFuture<String> never = new DefaultPromiseFuture<>();
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        promise.thenSync(String::length).name("length").thenAsync(value -> never).name("nested");
+        registry.register(promise);
+
+        promise.fulfill("value");
+
+        List<ChainSnapshot.Node> nodes = registry.snapshot().get(0).nodes();
+        assertEquals(2, nodes.size());
+        assertEquals("length", nodes.get(1).promise());
+        assertEquals(1, nodes.get(1).depth());
+        assertEquals(Collections.singletonList("nested"), nodes.get(1).pendingStages());
+    }
+
+    @Test
+    public void testMappedElementsAreNotListed() {
+        DefaultPromiseFuture<String> never = new DefaultPromiseFuture<>();
+        PromiseListImpl<String> list = new PromiseListImpl<>();
+        list.name("list");
+        list.map().thenAsync(value -> never).name("element");
+        registry.register(list);
+
+        list.fulfill(Collections.singletonList("value"));
+
+        List<ChainSnapshot.Node> nodes = registry.snapshot().get(0).nodes();
+        assertEquals(1, nodes.size());
+        assertEquals("list", nodes.get(0).promise());
+        assertEquals(1, nodes.get(0).countdown());
+        assertFalse(nodes.get(0).pendingStages().contains("element"));
+    }
+
+    @Test
+    public void testCompletedChainIsRemoved() {
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        promise.thenSync(String::length);
+        registry.register(promise);
+        assertEquals(1, registry.size());
+
+        promise.fulfill("value");
+
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testCollectedChainIsRemoved() throws Exception {
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        promise.thenAsync(value -> new DefaultPromiseFuture<String>());
+        registry.register(promise);
+        promise.fulfill("value");
+        promise = null;
+
+        for (int i = 0; i < 100 && registry.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testDetectorReportsOnce() {
+        DefaultPromiseFuture<String> never = new DefaultPromiseFuture<>();
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        promise.thenAsync(value -> never);
+        registry.register(promise);
+        promise.fulfill("value");
+
+        List<ChainSnapshot> reported = new ArrayList<>();
+        StuckChainDetector detector = new StuckChainDetector(registry, 0, TimeUnit.SECONDS, reported::add);
+        detector.run();
+        detector.run();
+        assertEquals(1, reported.size());
+
+        StuckChainDetector patient = new StuckChainDetector(registry, 1, TimeUnit.HOURS, reported::add);
+        patient.run();
+        assertEquals(1, reported.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegisterDispatchedPromise() {
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        promise.fulfill("value");
+        registry.register(promise);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegisterTwice() {
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        registry.register(promise);
+        registry.register(promise);
+    }
+
+    private static final class PendingFunction implements AsyncPromiseFunction<String, String>, ComparablePromiseFunction {
+        private final PromiseFuture<String> future;
+
+        PendingFunction(PromiseFuture<String> future) {
+            this.future = future;
+        }
+
+        @Override
+        public PromiseFuture<String> handle(String data) {
+            return future;
+        }
+
+        @Override
+        public boolean equivalent(Object o) {
+            return o instanceof PendingFunction;
+        }
+    }
+}
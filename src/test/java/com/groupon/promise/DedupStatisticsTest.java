@@ -0,0 +1,122 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the deduplication statistics and the adaptive policy.
+ *
+ * @since 0.13
+ */
+public class DedupStatisticsTest {
+    private boolean previous;
+
+    @Before
+    public void setUp() {
+        previous = DedupStatistics.enable(true);
+    }
+
+    @After
+    public void tearDown() {
+        DedupStatistics.enable(previous);
+    }
+
+    @Test
+    public void testChainRecordsLookups() {
+        DefaultPromiseFuture<String> pending = new DefaultPromiseFuture<>();
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        promise.then(new PendingFunction(pending));
+        promise.then(new PendingFunction(pending));
+        promise.then(new PendingFunction(pending));
+
+        promise.fulfill("value");
+        pending.setResult("done");
+
+        DedupStatistics statistics = DedupStatistics.of(PendingFunction.class);
+        assertEquals(3, statistics.lookups());
+        assertEquals(2, statistics.hits());
+        assertEquals(1, statistics.misses());
+        assertEquals(3, statistics.maxWaiters());
+        assertEquals(3.0, statistics.averageWaiters(), 0.0);
+        assertSame(statistics, DedupStatistics.all().get(PendingFunction.class.getName()));
+    }
+
+    @Test
+    public void testAdaptiveDisablesAndReprobes() {
+        DedupStatistics statistics = new DedupStatistics(Object.class, true, 10, 0.5);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(statistics.attempt());
+            statistics.record(i < 4, 2);
+        }
+        assertTrue(statistics.disabled());
+
+        int skipped = 0;
+        while (!statistics.attempt()) {
+            skipped++;
+        }
+        assertEquals(1000, skipped);
+        assertEquals(1000, statistics.skipped());
+        assertFalse(statistics.disabled());
+        assertEquals(10, statistics.lookups());
+        assertEquals(0.4, statistics.hitRate(), 0.0);
+    }
+
+    @Test
+    public void testAdaptiveKeepsEffectiveDedup() {
+        DedupStatistics statistics = new DedupStatistics(Object.class, true, 10, 0.5);
+        for (int i = 0; i < 20; i++) {
+            statistics.record(i % 2 == 0, 2);
+        }
+        assertFalse(statistics.disabled());
+    }
+
+    @Test
+    public void testNotAdaptive() {
+        DedupStatistics statistics = new DedupStatistics(Object.class, false, 10, 0.5);
+        for (int i = 0; i < 20; i++) {
+            statistics.record(false, 1);
+        }
+        assertFalse(statistics.disabled());
+        assertTrue(statistics.attempt());
+        assertEquals(1, statistics.maxWaiters());
+    }
+
+    private static final class PendingFunction implements AsyncPromiseFunction<String, String>, ComparablePromiseFunction {
+        private final PromiseFuture<String> future;
+
+        PendingFunction(PromiseFuture<String> future) {
+            this.future = future;
+        }
+
+        @Override
+        public PromiseFuture<String> handle(String data) {
+            return future;
+        }
+
+        @Override
+        public boolean equivalent(Object o) {
+            return o instanceof PendingFunction;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test the primitive double promises.
+ *
+ * @since 0.13
+ */
+public class DoublePromiseListTest {
+
+    @Test
+    public void testMapDoubleAndFold() {
+        DoublePromiseList promise = new DoublePromiseList();
+        DoublePromiseList squares = promise.mapDouble(value -> value * value);
+        Promise<Double> sum = squares.fold(0.0, Double::sum);
+
+        promise.fulfill(new double[] {3.0, 4.0});
+
+        assertArrayEquals(new double[] {9.0, 16.0}, squares.value(), 0.0);
+        assertEquals(25.0, sum.value(), 0.0);
+    }
+
+    @Test
+    public void testMapDoubleRejects() {
+        DoublePromiseList promise = new DoublePromiseList();
+        DoublePromiseList result = promise.mapDouble(value -> {
+            throw new IllegalArgumentException("bad value");
+        });
+
+        promise.fulfill(new double[] {1.0});
+
+        assertTrue(result.rejected());
+        assertNull(result.value());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFoldNullOperator() {
+        new DoublePromiseList().fold(0.0, null);
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test the primitive long promises.
+ *
+ * @since 0.13
+ */
+public class LongPromiseListTest {
+
+    @Test
+    public void testMapLongAndFold() {
+        LongPromiseList promise = new LongPromiseList();
+        LongPromiseList doubled = promise.mapLong(value -> value * 2);
+        Promise<Long> sum = doubled.fold(0L, Long::sum);
+
+        promise.fulfill(new long[] {1L, 2L, 3L});
+
+        assertArrayEquals(new long[] {2L, 4L, 6L}, doubled.value());
+        assertEquals(Long.valueOf(12L), sum.value());
+    }
+
+    @Test
+    public void testMapToDouble() {
+        LongPromiseList promise = new LongPromiseList();
+        DoublePromiseList halves = promise.mapToDouble(value -> value / 2.0);
+        Promise<Double> max = halves.fold(Double.NEGATIVE_INFINITY, Math::max);
+
+        promise.fulfill(new long[] {1L, 4L});
+
+        assertArrayEquals(new double[] {0.5, 2.0}, halves.value(), 0.0);
+        assertEquals(2.0, max.value(), 0.0);
+    }
+
+    @Test
+    public void testNullList() {
+        LongPromiseList promise = new LongPromiseList();
+        LongPromiseList mapped = promise.mapLong(value -> value + 1);
+        Promise<Long> sum = promise.fold(7L, Long::sum);
+
+        promise.fulfill(null);
+
+        assertTrue(mapped.fulfilled());
+        assertNull(mapped.value());
+        assertEquals(Long.valueOf(7L), sum.value());
+    }
+
+    @Test
+    public void testMapLongRejects() {
+        IllegalStateException error = new IllegalStateException("bad element");
+        LongPromiseList promise = new LongPromiseList();
+        Promise<Long> result = promise.mapLong(value -> {
+            if (value == 2L) {
+                throw error;
+            }
+            return value;
+        }).fold(0L, Long::sum);
+
+        promise.fulfill(new long[] {1L, 2L, 3L});
+
+        assertTrue(result.rejected());
+        assertSame(error, result.reason());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMapLongNullFunction() {
+        new LongPromiseList().mapLong(null);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMapLongAfterDispatch() {
+        LongPromiseList promise = new LongPromiseList();
+        promise.fulfill(new long[0]);
+        promise.mapLong(value -> value);
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Test the PartialAccumulator.
+ *
+ * @since 0.13
+ */
+public class PartialAccumulatorTest {
+
+    @Test
+    public void testAccumulateAcrossThreads() throws Exception {
+        PartialAccumulator<Integer, ?, List<Integer>> partials = new PartialAccumulator<>(Collectors.toList());
+        AtomicInteger latch = new AtomicInteger(400);
+        CountDownLatch finished = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 400; i++) {
+                final int value = i;
+                executor.execute(() -> {
+                    partials.accumulate(value);
+                    if (latch.decrementAndGet() == 0) {
+                        finished.countDown();
+                    }
+                });
+            }
+            assertTrue(finished.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Integer> result = new ArrayList<>(partials.finish());
+        result.sort(Integer::compare);
+
+        assertEquals(400, result.size());
+        for (int i = 0; i < 400; i++) {
+            assertEquals(Integer.valueOf(i), result.get(i));
+        }
+    }
+
+    @Test
+    public void testFinishWithoutValues() {
+        PartialAccumulator<Integer, ?, Integer> partials = new PartialAccumulator<>(Collectors.summingInt(Integer::intValue));
+
+        assertEquals(Integer.valueOf(0), partials.finish());
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+/**
+ * Test the flight recorder events emitted by a chain.
+ *
+ * @since 0.13
+ */
+public class PromiseEventsTest {
+    private static final String[] EVENTS = {
+        "com.groupon.promise.Dispatch",
+        "com.groupon.promise.Stage",
+        "com.groupon.promise.Dedup",
+        "com.groupon.promise.Countdown",
+        "com.groupon.promise.MapElement"
+    };
+
+    @Test
+    public void testDisabledByDefault() {
+        assertNull(PromiseEvents.beginDispatch());
+        assertNull(PromiseEvents.beginStage());
+        assertNull(PromiseEvents.beginDedup());
+        assertNull(PromiseEvents.beginMapElement());
+    }
+
+    @Test
+    public void testChainIds() {
+        PromiseImpl<String> first = new PromiseImpl<>();
+        PromiseImpl<String> second = new PromiseImpl<>();
+        Promise<Integer> child = first.thenSync(String::length);
+
+        assertEquals(first.chainId(), ((PromiseImpl<Integer>) child).chainId());
+        assertEquals(first.chainId(), ((PromiseImpl<Void>) first.after()).chainId());
+        assertNotEquals(first.chainId(), second.chainId());
+    }
+
+    @Test
+    public void testEventsRecorded() throws Exception {
+        Path file = Files.createTempFile("promise", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String event : EVENTS) {
+                recording.enable(event);
+            }
+            recording.start();
+
+            PromiseListImpl<String> promise = new PromiseListImpl<>();
+            promise.name("events");
+            promise.map().thenSync(String::length).name("length");
+            promise.fulfill(Arrays.asList("one", "two", "three"));
+
+            recording.stop();
+            recording.dump(file);
+
+            Map<String, Integer> counts = new HashMap<>();
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            for (RecordedEvent event : events) {
+                counts.merge(event.getEventType().getName(), 1, Integer::sum);
+                assertEquals(promise.chainId(), event.getLong("chainId"));
+                assertFalse(event.getDuration().isNegative());
+                if (event.getEventType().getName().equals("com.groupon.promise.Dispatch")) {
+                    assertEquals("events", event.getString("promise"));
+                    assertFalse(event.getBoolean("rejected"));
+                }
+            }
+            assertEquals(Integer.valueOf(1), counts.get("com.groupon.promise.Dispatch"));
+            assertEquals(Integer.valueOf(3), counts.get("com.groupon.promise.MapElement"));
+            assertTrue(counts.get("com.groupon.promise.Stage") >= 3);
+            assertTrue(counts.get("com.groupon.promise.Countdown") >= 1);
+            assertTrue(counts.containsKey("com.groupon.promise.Dedup"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -17,12 +17,18 @@ package com.groupon.promise;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.junit.Test;
 
 import com.groupon.promise.function.EchoFunction;
 import com.groupon.promise.function.EchoFunctionExtended;
 import com.groupon.promise.function.FixedValueFunction;
+import com.groupon.promise.function.PromiseFunctionResult;
 
 /**
  * Test the PromiseFunctionKey.
@@ -63,4 +69,38 @@ public class PromiseFunctionKeyTest {
 
         assertNotEquals(key1, key2);
     }
+
+    @Test
+    public void probeFindsExistingKeyTest() {
+        ConcurrentMap<PromiseFunctionKey<?>, String> map = new ConcurrentHashMap<>();
+        PromiseFunctionKey<String> key = new PromiseFunctionKey<>(new EchoFunction<String>(), "a");
+        map.put(key, "value");
+
+        PromiseFunctionKey<Object> probe = PromiseFunctionKey.probe(new EchoFunction<String>(), "a");
+        assertEquals("value", map.get(probe));
+        assertEquals(key.hashCode(), probe.hashCode());
+        probe.clear();
+
+        assertNull(map.get(PromiseFunctionKey.probe(new EchoFunction<String>(), "b")));
+    }
+
+    @Test
+    public void probeIsReusedTest() {
+        PromiseFunctionKey<Object> probe = PromiseFunctionKey.probe(new EchoFunction<String>(), "a");
+        PromiseFunctionKey<Object> key = probe.toKey();
+
+        assertSame(probe, PromiseFunctionKey.probe(new EchoFunction<String>(), "b"));
+        assertEquals(new PromiseFunctionKey<>(new EchoFunction<String>(), "a"), key);
+    }
+
+    @Test
+    public void equivalenceHashTest() {
+        ComparablePromiseFunction function = new FixedValueFunction<String, String>("a");
+        PromiseFunctionKey<String> key1 = new PromiseFunctionKey<>(function, "a");
+        PromiseFunctionKey<String> key2 = new PromiseFunctionKey<>(new PromiseFunctionResult<>(
+                new FixedValueFunction<String, String>("a")), "a");
+
+        assertEquals(key1.hashCode(), key2.hashCode());
+        assertEquals(FixedValueFunction.class.hashCode(), function.equivalenceHash());
+    }
 }
@@ -0,0 +1,86 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Test the shared completed futures.
+ *
+ * @since 0.13
+ */
+public class PromiseFuturesTest {
+
+    @Test
+    public void testSharedInstances() {
+        assertSame(PromiseFutures.VOID, PromiseFutures.completed((Void) null));
+        assertSame(PromiseFutures.TRUE, PromiseFutures.completed(Boolean.TRUE));
+        assertSame(PromiseFutures.FALSE, PromiseFutures.completed(false));
+        assertSame(PromiseFutures.completed(42), PromiseFutures.completed(Integer.valueOf(42)));
+        assertSame(PromiseFutures.completed(-128), PromiseFutures.completed(-128));
+        assertNotSame(PromiseFutures.completed(1000), PromiseFutures.completed(1000));
+        assertEquals(Integer.valueOf(1000), PromiseFutures.completed(1000).result());
+    }
+
+    @Test
+    public void testCompletedIsImmutable() {
+        PromiseFuture<String> future = PromiseFutures.completed("value");
+        future.setResult("other");
+        future.setFailure(new IllegalStateException());
+
+        assertTrue(future.complete());
+        assertTrue(future.succeeded());
+        assertFalse(future.failed());
+        assertEquals("value", future.result());
+        assertNull(future.cause());
+    }
+
+    @Test
+    public void testHandlerCalledImmediately() {
+        AtomicInteger calls = new AtomicInteger();
+        PromiseFutures.VOID.setHandler(event -> calls.incrementAndGet());
+        PromiseFutures.VOID.setHandler(event -> calls.incrementAndGet());
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testFailed() {
+        IllegalStateException error = new IllegalStateException();
+        PromiseFuture<String> future = PromiseFutures.failed(error);
+        future.setResult("value");
+
+        assertTrue(future.complete());
+        assertTrue(future.failed());
+        assertFalse(future.succeeded());
+        assertSame(error, future.cause());
+        assertNull(future.result());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFailedWithoutCause() {
+        PromiseFutures.failed(null);
+    }
+}
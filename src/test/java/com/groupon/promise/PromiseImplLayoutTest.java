@@ -0,0 +1,80 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Test the memory retained by each promise, excluding the state shared by the chain.
+ *
+ * @since 0.13
+ */
+public class PromiseImplLayoutTest {
+    private static final long MAX_LEAF_SIZE = 128;
+
+    @Test
+    public void testLeafRetainsOnlyItself() {
+        PromiseImpl<String> root = new PromiseImpl<>();
+        PromiseImpl<Integer> leaf = (PromiseImpl<Integer>) root.thenSync(String::length);
+
+        GraphLayout retained = retained(leaf);
+
+        assertEquals(Collections.singleton(PromiseImpl.class), retained.getClasses());
+        assertTrue("Leaf retains " + retained.totalSize() + " bytes", retained.totalSize() <= MAX_LEAF_SIZE);
+    }
+
+    @Test
+    public void testSingleChildRetainsNoArray() {
+        PromiseImpl<String> root = new PromiseImpl<>();
+        root.thenSync(String::length);
+
+        assertFalse(retained(root).getClasses().contains(PromiseTuple[].class));
+    }
+
+    @Test
+    public void testSecondChildAllocatesArray() {
+        PromiseImpl<String> root = new PromiseImpl<>();
+        root.thenSync(String::length);
+        root.thenSync(String::isEmpty);
+
+        assertTrue(retained(root).getClasses().contains(PromiseTuple[].class));
+    }
+
+    @Test
+    public void testCompletedLeafRetainsNoFuture() {
+        PromiseImpl<String> root = new PromiseImpl<>();
+        PromiseImpl<Integer> leaf = (PromiseImpl<Integer>) root.thenSync(String::length);
+
+        root.fulfill("value");
+
+        Set<Class<?>> retained = retained(leaf).getClasses();
+        assertFalse(retained.contains(OptionalFuture.class));
+        assertFalse(retained.contains(PromiseCountdownHandler.class));
+    }
+
+    private static GraphLayout retained(PromiseImpl<?> promise) {
+        return GraphLayout.parseInstance(promise)
+                .subtract(GraphLayout.parseInstance(promise.dispatched, promise.pendingFutures));
+    }
+}
@@ -19,6 +19,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.never;
@@ -34,6 +35,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
@@ -46,6 +51,7 @@ import com.groupon.promise.function.EchoFunction;
 import com.groupon.promise.function.FixedValueFunction;
 import com.groupon.promise.function.PromiseFunctionResult;
 import com.groupon.promise.function.PromiseListFunctionResult;
+import com.groupon.promise.metrics.PromiseMetrics;
 
 /**
  * Test the PromiseImpl.
@@ -107,6 +113,32 @@ public class PromiseImplTest {
         assertNull(future.reason());
     }
 
+    @Test
+    public void testMetricsNoopByDefault() {
+        assertSame(PromiseMetrics.NOOP, PromiseMetrics.installed());
+        assertFalse(PromiseMetrics.NOOP.enabled());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testChildrenAndCountdown() {
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        List<PromiseTuple<String, ?>> children = promise.children();
+        assertTrue(children.isEmpty());
+
+        promise.thenSync(String::length);
+        promise.thenSync(String::isEmpty);
+        promise.thenSync(String::trim);
+
+        assertEquals(3, children.size());
+        assertEquals(4, promise.countdown().get());
+        assertSame(promise.countdownHandler(), promise.countdownHandler());
+
+        promise.fulfill("value");
+
+        assertEquals(0, promise.countdown().get());
+    }
+
     @Test
     public void testDispatchWithNoHandler() {
         String result = "success";
@@ -1394,6 +1426,100 @@ public class PromiseImplTest {
         assertEquals(4, results.size());
     }
 
+    @Test
+    public void testAffinityExecutesContinuationsOnEventLoop() throws Exception {
+        ExecutorService eventLoop = Executors.newSingleThreadExecutor();
+        ExecutorService foreign = Executors.newSingleThreadExecutor();
+        try {
+            Thread eventLoopThread = eventLoop.submit(Thread::currentThread).get();
+            List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch finished = new CountDownLatch(1);
+
+            PromiseImpl<String> future = new PromiseImpl<>(eventLoop);
+            future.thenAsync(data -> {
+                threads.add(Thread.currentThread());
+                PromiseFuture<String> remote = new DefaultPromiseFuture<>();
+                foreign.execute(() -> remote.setResult(data + "-remote"));
+                return remote;
+            }).thenSync(data -> {
+                threads.add(Thread.currentThread());
+                return data;
+            });
+            future.after().thenSync(data -> {
+                threads.add(Thread.currentThread());
+                finished.countDown();
+                return data;
+            });
+
+            future.fulfill("value");
+
+            assertTrue(finished.await(5, TimeUnit.SECONDS));
+            assertEquals(3, threads.size());
+            for (Thread thread : threads) {
+                assertEquals(eventLoopThread, thread);
+            }
+        } finally {
+            eventLoop.shutdown();
+            foreign.shutdown();
+        }
+    }
+
+    @Test
+    public void testSynchronousFastPath() {
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        promise.nonduplicating(false);
+        Promise<Integer> length = promise.thenSync(String::length);
+        length.nonduplicating(false);
+        Promise<Integer> doubled = length.thenSync(value -> value * 2);
+        PromiseImpl<Void> after = (PromiseImpl<Void>) promise.after();
+
+        promise.fulfill("value");
+
+        assertEquals(Integer.valueOf(5), length.value());
+        assertEquals(Integer.valueOf(10), doubled.value());
+        assertTrue(after.fulfilled());
+        assertTrue(promise.pendingFutures.isEmpty());
+    }
+
+    @Test
+    public void testSynchronousFastPathRejected() {
+        IllegalStateException error = new IllegalStateException("failed");
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        promise.nonduplicating(false);
+        Promise<Integer> failed = promise.thenSync(value -> {
+            throw error;
+        });
+        Promise<Integer> skipped = failed.thenSync(value -> value * 2);
+        PromiseImpl<Void> after = (PromiseImpl<Void>) promise.after();
+
+        promise.fulfill("value");
+
+        assertTrue(failed.rejected());
+        assertEquals(error, failed.reason());
+        assertTrue(skipped.rejected());
+        assertTrue(after.rejected());
+        assertEquals(error, after.reason().getSuppressed()[0]);
+    }
+
+    @Test
+    public void testManyChildrenDispatchedInOrder() {
+        List<Integer> order = new ArrayList<>();
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        for (int i = 0; i < 5; i++) {
+            final int index = i;
+            promise.thenSync(value -> {
+                order.add(index);
+                return value;
+            });
+        }
+        PromiseImpl<Void> after = (PromiseImpl<Void>) promise.after();
+
+        promise.fulfill("value");
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), order);
+        assertTrue(after.fulfilled());
+    }
+
     private class CounterFunction implements SyncPromiseFunction<String, Integer>, ComparablePromiseFunction {
         private AtomicInteger counter;
 
@@ -25,11 +25,16 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -256,6 +261,28 @@ public class PromiseListImplTest {
         assertFalse(dispatches.pending());
     }
 
+    @Test
+    public void testConcurrencyLimitingSnapshotsList() {
+        List<String> data = new ArrayList<>(Arrays.asList("one", "two"));
+        final Map<String, PromiseFuture<Void>> futures = new HashMap<>();
+
+        PromiseListImpl<String> promiseList = new PromiseListImpl<>();
+        promiseList.map(1).thenAsync(element -> {
+            PromiseFuture<Void> rval = new DefaultPromiseFuture<>();
+            futures.put(element, rval);
+            return rval;
+        });
+        Promise<Void> dispatches = promiseList.after();
+        promiseList.fulfill(data);
+        data.add("three");
+
+        futures.get("one").setResult(null);
+        futures.get("two").setResult(null);
+
+        assertEquals(2, futures.size());
+        assertTrue(dispatches.fulfilled());
+    }
+
     @Test
     public void testConcurrencyLimitingWithEqualElements() {
         List<String> data = Arrays.asList("one", "two", "three");
@@ -403,4 +430,390 @@ public class PromiseListImplTest {
         assertNull(future.value());
         assertEquals(exception, future.reason());
     }
+
+    @Test
+    public void testNestedMapStreamsPerElement() {
+        final Map<String, PromiseFuture<String>> firstStage = new HashMap<>();
+        final Map<String, PromiseFuture<Void>> secondStage = new HashMap<>();
+
+        PromiseListImpl<String> promiseList = new PromiseListImpl<>();
+        Promise<String> elements = promiseList.map().thenAsync(data -> {
+            PromiseFuture<String> rval = new DefaultPromiseFuture<>();
+            firstStage.put(data, rval);
+            return rval;
+        });
+        elements.thenListSync(data -> Arrays.asList(data + "1", data + "2")).map().thenAsync(data -> {
+            PromiseFuture<Void> rval = new DefaultPromiseFuture<>();
+            secondStage.put(data, rval);
+            return rval;
+        });
+        Promise<Void> dispatches = promiseList.after();
+        promiseList.fulfill(Arrays.asList("one", "two"));
+
+        assertEquals(2, firstStage.size());
+        assertTrue(secondStage.isEmpty());
+
+        firstStage.get("one").setResult("one");
+
+        assertEquals(2, secondStage.size());
+        assertTrue(secondStage.containsKey("one1"));
+        assertTrue(secondStage.containsKey("one2"));
+
+        secondStage.get("one1").setResult(null);
+        secondStage.get("one2").setResult(null);
+        assertTrue(dispatches.pending());
+
+        firstStage.get("two").setResult("two");
+        secondStage.get("two1").setResult(null);
+        assertTrue(dispatches.pending());
+
+        secondStage.get("two2").setResult(null);
+        assertTrue(dispatches.fulfilled());
+    }
+
+    @Test
+    public void testPipelinedConcurrencyLimiting() {
+        List<String> data = Arrays.asList("one", "two", "three");
+        final Map<String, PromiseFuture<String>> firstStage = new HashMap<>();
+        final Map<String, PromiseFuture<Void>> secondStage = new HashMap<>();
+
+        PromiseListImpl<String> promiseList = new PromiseListImpl<>();
+        Promise<String> elements = promiseList.mapPipelined(1).thenAsync(element -> {
+            PromiseFuture<String> rval = new DefaultPromiseFuture<>();
+            firstStage.put(element, rval);
+            return rval;
+        });
+        elements.thenAsync(element -> {
+            PromiseFuture<Void> rval = new DefaultPromiseFuture<>();
+            secondStage.put(element, rval);
+            return rval;
+        });
+        Promise<Void> dispatches = promiseList.after();
+        promiseList.fulfill(data);
+
+        assertEquals(1, firstStage.size());
+        assertTrue(firstStage.containsKey("one"));
+
+        firstStage.get("one").setResult("one");
+
+        assertEquals(2, firstStage.size());
+        assertTrue(firstStage.containsKey("two"));
+        assertTrue(secondStage.containsKey("one"));
+
+        firstStage.get("two").setFailure(new Exception("two failed"));
+
+        assertEquals(3, firstStage.size());
+        assertTrue(firstStage.containsKey("three"));
+        assertEquals(1, secondStage.size());
+
+        firstStage.get("three").setResult("three");
+        secondStage.get("three").setResult(null);
+        assertTrue(dispatches.pending());
+
+        secondStage.get("one").setResult(null);
+        assertTrue(dispatches.rejected());
+    }
+
+    @Test
+    public void testPipelinedWithoutStages() {
+        PromiseListImpl<String> promiseList = new PromiseListImpl<>();
+        promiseList.mapPipelined(1);
+        Promise<Void> dispatches = promiseList.after();
+        promiseList.fulfill(Arrays.asList("one", "two", "three"));
+
+        assertTrue(dispatches.fulfilled());
+    }
+
+    @Test
+    public void testPipelinedLargeSyncList() {
+        List<Integer> values = IntStream.range(0, 200000).boxed().collect(Collectors.toList());
+        AtomicInteger mapped = new AtomicInteger();
+
+        PromiseListImpl<Integer> promiseList = new PromiseListImpl<>();
+        promiseList.mapPipelined(4).thenSync(data -> mapped.incrementAndGet());
+        Promise<Void> dispatches = promiseList.after();
+        promiseList.fulfill(values);
+
+        assertTrue(dispatches.fulfilled());
+        assertEquals(values.size(), mapped.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPipelinedWithBadInput() {
+        new PromiseListImpl<String>().mapPipelined(0);
+    }
+
+    @Test
+    public void testMapCollect() {
+        PromiseListImpl<String> promiseList = new PromiseListImpl<>();
+        PromiseList<Integer> lengths = promiseList.mapCollect((SyncPromiseFunction<String, Integer>) String::length);
+        Promise<Void> dispatches = promiseList.after();
+        promiseList.fulfill(Arrays.asList("one", "three", "eleven"));
+
+        assertTrue(lengths.fulfilled());
+        assertEquals(3, lengths.value().size());
+        assertTrue(lengths.value().containsAll(Arrays.asList(3, 5, 6)));
+        assertTrue(dispatches.fulfilled());
+    }
+
+    @Test
+    public void testMapCollectWithCollector() {
+        final Map<String, PromiseFuture<Integer>> futures = new HashMap<>();
+
+        PromiseListImpl<String> promiseList = new PromiseListImpl<>();
+        Promise<Integer> total = promiseList.mapCollect((AsyncPromiseFunction<String, Integer>) data -> {
+            PromiseFuture<Integer> rval = new DefaultPromiseFuture<>();
+            futures.put(data, rval);
+            return rval;
+        }, Collectors.summingInt(Integer::intValue));
+        promiseList.fulfill(Arrays.asList("one", "three"));
+
+        assertTrue(total.pending());
+
+        futures.get("three").setResult(5);
+        futures.get("one").setResult(3);
+
+        assertTrue(total.fulfilled());
+        assertEquals(Integer.valueOf(8), total.value());
+    }
+
+    @Test
+    public void testMapCollectWithFailure() {
+        Exception exception = new Exception("failure");
+
+        PromiseListImpl<String> promiseList = new PromiseListImpl<>();
+        PromiseList<Integer> lengths = promiseList.mapCollect((SyncPromiseFunction<String, Integer>) data -> {
+            if ("two".equals(data)) {
+                throw exception;
+            }
+            return data.length();
+        });
+        Promise<Void> dispatches = promiseList.after();
+        promiseList.fulfill(Arrays.asList("one", "two"));
+
+        assertTrue(lengths.rejected());
+        assertEquals(exception, lengths.reason().getSuppressed()[0]);
+        assertTrue(dispatches.rejected());
+    }
+
+    @Test
+    public void testMapCollectEmptyList() {
+        PromiseListImpl<String> promiseList = new PromiseListImpl<>();
+        PromiseList<Integer> lengths = promiseList.mapCollect((SyncPromiseFunction<String, Integer>) String::length);
+        promiseList.fulfill(Arrays.asList());
+
+        assertTrue(lengths.fulfilled());
+        assertTrue(lengths.value().isEmpty());
+    }
+
+    @Test
+    public void testReduce() {
+        PromiseListImpl<String> promiseList = new PromiseListImpl<>();
+        Promise<Integer> total = promiseList.reduce(0, (sum, data) -> sum + data.length(), Integer::sum);
+        promiseList.fulfill(Arrays.asList("one", "three", "eleven"));
+
+        assertTrue(total.fulfilled());
+        assertEquals(Integer.valueOf(14), total.value());
+    }
+
+    @Test
+    public void testCollect() {
+        PromiseListImpl<String> promiseList = new PromiseListImpl<>();
+        Promise<String> joined = promiseList.collect(Collectors.joining(","));
+        promiseList.fulfill(Arrays.asList("one", "two"));
+
+        assertTrue(joined.fulfilled());
+        assertEquals("one,two", joined.value());
+    }
+
+    @Test
+    public void testCollectNull() {
+        PromiseListImpl<String> promiseList = new PromiseListImpl<>();
+        Promise<String> joined = promiseList.collect(Collectors.joining(","));
+        promiseList.fulfill(null);
+
+        assertTrue(joined.fulfilled());
+        assertEquals("", joined.value());
+    }
+
+    @Test
+    public void testMapCollectOrdered() {
+        final Map<String, PromiseFuture<Integer>> futures = new HashMap<>();
+
+        PromiseListImpl<String> promiseList = new PromiseListImpl<>();
+        PromiseList<Integer> lengths = promiseList.mapCollectOrdered((AsyncPromiseFunction<String, Integer>) data -> {
+            PromiseFuture<Integer> rval = new DefaultPromiseFuture<>();
+            futures.put(data, rval);
+            return rval;
+        });
+        promiseList.fulfill(Arrays.asList("one", "three", "eleven"));
+
+        futures.get("eleven").setResult(6);
+        futures.get("one").setResult(3);
+        assertTrue(lengths.pending());
+
+        futures.get("three").setResult(5);
+
+        assertTrue(lengths.fulfilled());
+        assertEquals(Arrays.asList(3, 5, 6), lengths.value());
+    }
+
+    @Test
+    public void testMapCollectOrderedWithConcurrencyLimit() {
+        final Map<String, PromiseFuture<Integer>> futures = new HashMap<>();
+
+        PromiseListImpl<String> promiseList = new PromiseListImpl<>();
+        PromiseList<Integer> lengths = promiseList.mapCollectOrdered((AsyncPromiseFunction<String, Integer>) data -> {
+            PromiseFuture<Integer> rval = new DefaultPromiseFuture<>();
+            futures.put(data, rval);
+            return rval;
+        }, 2);
+        promiseList.fulfill(Arrays.asList("one", "three", "eleven"));
+
+        assertEquals(2, futures.size());
+        assertTrue(futures.containsKey("one"));
+        assertTrue(futures.containsKey("three"));
+
+        futures.get("three").setResult(5);
+
+        assertEquals(3, futures.size());
+        assertTrue(futures.containsKey("eleven"));
+
+        futures.get("eleven").setResult(6);
+        futures.get("one").setResult(3);
+
+        assertTrue(lengths.fulfilled());
+        assertEquals(Arrays.asList(3, 5, 6), lengths.value());
+    }
+
+    @Test
+    public void testMapCollectOrderedWithFailure() {
+        Exception exception = new Exception("failure");
+
+        PromiseListImpl<String> promiseList = new PromiseListImpl<>();
+        PromiseList<Integer> lengths = promiseList.mapCollectOrdered((SyncPromiseFunction<String, Integer>) data -> {
+            if ("two".equals(data)) {
+                throw exception;
+            }
+            return data.length();
+        }, 1);
+        promiseList.fulfill(Arrays.asList("one", "two", "three"));
+
+        assertTrue(lengths.rejected());
+        assertEquals(exception, lengths.reason().getSuppressed()[0]);
+    }
+
+    @Test
+    public void testMapCollectOrderedLargeSyncList() {
+        List<Integer> values = IntStream.range(0, 200000).boxed().collect(Collectors.toList());
+
+        PromiseListImpl<Integer> promiseList = new PromiseListImpl<>();
+        PromiseList<Integer> doubled = promiseList.mapCollectOrdered((SyncPromiseFunction<Integer, Integer>) data -> data * 2);
+        promiseList.fulfill(values);
+
+        assertTrue(doubled.fulfilled());
+        assertEquals(values.size(), doubled.value().size());
+        assertEquals(Integer.valueOf(2 * 199999), ((List<Integer>) doubled.value()).get(199999));
+    }
+
+    @Test
+    public void testMapCollectOrderedLargeSyncListWithConcurrencyLimit() {
+        List<Integer> values = IntStream.range(0, 200000).boxed().collect(Collectors.toList());
+
+        PromiseListImpl<Integer> promiseList = new PromiseListImpl<>();
+        PromiseList<Integer> doubled = promiseList.mapCollectOrdered((SyncPromiseFunction<Integer, Integer>) data -> data * 2, 4);
+        promiseList.fulfill(values);
+
+        assertTrue(doubled.fulfilled());
+        assertEquals(values.size(), doubled.value().size());
+        assertEquals(Integer.valueOf(2 * 199999), ((List<Integer>) doubled.value()).get(199999));
+    }
+
+    @Test
+    public void testMapCollectOrderedEmptyList() {
+        PromiseListImpl<String> promiseList = new PromiseListImpl<>();
+        PromiseList<Integer> lengths = promiseList.mapCollectOrdered((SyncPromiseFunction<String, Integer>) String::length);
+        promiseList.fulfill(Arrays.asList());
+
+        assertTrue(lengths.fulfilled());
+        assertTrue(lengths.value().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMapCollectOrderedWithBadInput() {
+        new PromiseListImpl<String>().mapCollectOrdered((SyncPromiseFunction<String, Integer>) String::length, 0);
+    }
+
+    @Test
+    public void testMapChunked() {
+        final ConcurrentLinkedQueue<List<Integer>> chunks = new ConcurrentLinkedQueue<>();
+
+        PromiseListImpl<Integer> promiseList = new PromiseListImpl<>();
+        promiseList.mapChunked(2).thenSync(chunk -> chunks.add(new ArrayList<>(chunk)));
+        Promise<Void> dispatches = promiseList.after();
+        promiseList.fulfill(Arrays.asList(1, 2, 3, 4, 5));
+
+        assertEquals(Arrays.asList(Arrays.asList(1, 2), Arrays.asList(3, 4), Arrays.asList(5)),
+                new ArrayList<>(chunks));
+        assertTrue(dispatches.fulfilled());
+    }
+
+    @Test
+    public void testMapChunkedWithConcurrencyLimit() {
+        final Map<Integer, PromiseFuture<Void>> futures = new HashMap<>();
+
+        PromiseListImpl<Integer> promiseList = new PromiseListImpl<>();
+        promiseList.mapChunked(2, 1).thenAsync(chunk -> {
+            PromiseFuture<Void> rval = new DefaultPromiseFuture<>();
+            futures.put(chunk.get(0), rval);
+            return rval;
+        });
+        Promise<Void> dispatches = promiseList.after();
+        promiseList.fulfill(new ArrayList<>(Arrays.asList(1, 2, 3)));
+
+        assertEquals(1, futures.size());
+        assertTrue(futures.containsKey(1));
+
+        futures.get(1).setResult(null);
+
+        assertEquals(2, futures.size());
+        assertTrue(futures.containsKey(3));
+        assertTrue(dispatches.pending());
+
+        futures.get(3).setResult(null);
+
+        assertTrue(dispatches.fulfilled());
+    }
+
+    @Test
+    public void testMapChunkedEmptyList() {
+        PromiseListImpl<Integer> promiseList = new PromiseListImpl<>();
+        promiseList.mapChunked(2).thenSync(chunk -> {
+            throw new IllegalStateException("No chunks expected");
+        });
+        Promise<Void> dispatches = promiseList.after();
+        promiseList.fulfill(null);
+
+        assertTrue(dispatches.fulfilled());
+    }
+
+    @Test
+    public void testMapChunkedWithFailure() {
+        Exception exception = new Exception("failure");
+
+        PromiseListImpl<Integer> promiseList = new PromiseListImpl<>();
+        promiseList.mapChunked(2).thenSync(chunk -> {
+            throw exception;
+        });
+        Promise<Void> dispatches = promiseList.after();
+        promiseList.fulfill(Arrays.asList(1, 2, 3));
+
+        assertTrue(dispatches.rejected());
+        assertEquals(exception, dispatches.reason().getSuppressed()[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMapChunkedWithBadInput() {
+        new PromiseListImpl<Integer>().mapChunked(0);
+    }
 }
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.groupon.promise.metrics.HistogramPromiseMetrics;
+import com.groupon.promise.metrics.PromiseMetrics;
+import com.groupon.promise.metrics.StageMetrics;
+
+/**
+ * Test the stage metrics recorded by a chain into HistogramPromiseMetrics.  This test runs in its own surefire
+ * execution, which installs HistogramPromiseMetrics with a service file.
+ *
+ * @since 0.13
+ */
+public class PromiseMetricsTest {
+    private final HistogramPromiseMetrics metrics = (HistogramPromiseMetrics) PromiseMetrics.installed();
+
+    @Test
+    public void testNamedStages() {
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        promise.nonduplicating(false);
+        promise.thenSync(String::length).name("metrics.length");
+        promise.thenSync(value -> {
+            throw new IllegalStateException();
+        }).name("metrics.failure");
+
+        promise.fulfill("value");
+
+        StageMetrics length = metrics.get("metrics.length");
+        assertNotNull(length);
+        assertEquals(1, length.succeeded());
+        assertEquals(0, length.failed());
+        assertEquals(1, length.executionTime().count());
+        assertEquals(1, metrics.get("metrics.failure").failed());
+    }
+
+    @Test
+    public void testAsyncExecutionTime() throws Exception {
+        DefaultPromiseFuture<String> pending = new DefaultPromiseFuture<>();
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        promise.thenAsync(value -> pending).name("metrics.async");
+
+        promise.fulfill("value");
+        Thread.sleep(5);
+        pending.setResult("done");
+
+        StageMetrics async = metrics.get("metrics.async");
+        assertEquals(1, async.succeeded());
+        assertEquals(0, async.dedupHits() + async.dedupMisses());
+        assertTrue(async.executionTime().max() >= 5000000L);
+    }
+
+    @Test
+    public void testStageNamedByFunctionClass() {
+        SyncPromiseFunction<String, Integer> function = new LengthFunction();
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        promise.then(function);
+        promise.then(function);
+
+        promise.fulfill("value");
+
+        StageMetrics stage = metrics.get(LengthFunction.class.getName());
+        assertEquals(1, stage.succeeded());
+        assertEquals(1, stage.dedupHits());
+        assertEquals(1, stage.dedupMisses());
+    }
+
+    private static class LengthFunction implements SyncPromiseFunction<String, Integer>, ComparablePromiseFunction {
+        @Override
+        public Integer handle(String data) {
+            return data.length();
+        }
+
+        @Override
+        public boolean equivalent(Object o) {
+            return o instanceof LengthFunction;
+        }
+    }
+}
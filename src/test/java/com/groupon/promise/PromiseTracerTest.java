@@ -0,0 +1,141 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Test the spans and critical path recorded by a PromiseTracer.
+ *
+ * @since 0.13
+ */
+public class PromiseTracerTest {
+    @Test
+    public void testCriticalPathFollowsSlowestBranch() {
+        DefaultPromiseFuture<String> fast = new DefaultPromiseFuture<>();
+        DefaultPromiseFuture<String> slow = new DefaultPromiseFuture<>();
+        PromiseTracer tracer = new PromiseTracer();
+        PromiseImpl<String> promise = tracer.trace(new PromiseImpl<>());
+        promise.name("root");
+        promise.thenAsync(value -> fast).name("fast");
+        promise.thenAsync(value -> slow).name("slow").thenSync(String::length).name("length");
+
+        promise.fulfill("value");
+        assertFalse(tracer.completed());
+        slow.setResult("slow");
+        fast.setResult("fast");
+
+        assertTrue(tracer.completed());
+        List<TraceSpan> path = tracer.criticalPath();
+        assertSame(tracer.root(), path.get(0));
+        assertNull(path.get(0).parent());
+        assertEquals("root", path.get(0).name());
+        assertEquals(TraceSpan.Kind.STAGE, path.get(1).kind());
+        assertEquals("fast", path.get(2).name());
+        assertEquals(3, path.size());
+
+        for (TraceSpan span : tracer.spans()) {
+            assertTrue(span.toString(), span.ended());
+            assertTrue(span.toString(), span.succeeded());
+        }
+        assertEquals(7, tracer.spans().size());
+    }
+
+    @Test
+    public void testCopiesAndAfterAreTraced() {
+        PromiseTracer tracer = new PromiseTracer();
+        PromiseListImpl<String> promise = tracer.trace(new PromiseListImpl<>());
+        promise.map().thenSync(String::length).name("element");
+        promise.after().thenSync(value -> {
+            throw new IllegalStateException("after");
+        }).name("afterStage").optional(true);
+
+        promise.fulfill(Arrays.asList("one", "two", "three"));
+
+        int copies = 0;
+        int elements = 0;
+        boolean after = false;
+        for (TraceSpan span : tracer.spans()) {
+            if (span.kind() == TraceSpan.Kind.COPY) {
+                copies++;
+            } else if (span.kind() == TraceSpan.Kind.PROMISE && "element".equals(span.name())) {
+                assertEquals(TraceSpan.Kind.STAGE, span.parent().kind());
+                assertEquals(TraceSpan.Kind.COPY, span.parent().parent().kind());
+                elements++;
+            } else if (span.kind() == TraceSpan.Kind.STAGE && "afterStage".equals(span.name())) {
+                assertSame(tracer.root(), span.parent().parent());
+                after = true;
+                assertFalse(span.succeeded());
+            }
+        }
+        assertEquals(3, copies);
+        assertEquals(3, elements);
+        assertTrue(after);
+        assertTrue(tracer.completed());
+    }
+
+    @Test
+    public void testExport() throws Exception {
+        PromiseTracer tracer = new PromiseTracer();
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        promise.name("quote\"d");
+        tracer.trace(promise);
+        promise.thenSync(String::length);
+        promise.fulfill("value");
+
+        StringBuilder chrome = new StringBuilder();
+        tracer.writeChromeTrace(chrome);
+        assertTrue(chrome.toString(), chrome.toString().startsWith("{\"displayTimeUnit\":\"ns\",\"traceEvents\":["));
+        assertTrue(chrome.toString(), chrome.toString().contains("\"name\":\"quote\\\"d\""));
+        assertTrue(chrome.toString(), chrome.toString().contains("\"critical\":true"));
+        assertTrue(chrome.toString(), chrome.toString().contains("\"ph\":\"M\""));
+
+        StringBuilder otlp = new StringBuilder();
+        tracer.writeSpanTree(otlp);
+        assertTrue(otlp.toString(), otlp.toString().contains("\"parentSpanId\":\"0000000000000001\""));
+        assertTrue(otlp.toString(), otlp.toString().contains("\"status\":{\"code\":1}"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCriticalPathBeforeCompletion() {
+        PromiseTracer tracer = new PromiseTracer();
+        tracer.trace(new PromiseImpl<String>());
+        tracer.criticalPath();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTraceDispatchedPromise() {
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        promise.fulfill("value");
+        new PromiseTracer().trace(promise);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTracerUsedTwice() {
+        PromiseTracer tracer = new PromiseTracer();
+        tracer.trace(new PromiseImpl<String>());
+        tracer.trace(new PromiseImpl<String>());
+    }
+}
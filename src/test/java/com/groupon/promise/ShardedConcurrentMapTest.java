@@ -0,0 +1,109 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Test the sharded map used for the pending futures of a chain.
+ *
+ * @since 0.13
+ */
+public class ShardedConcurrentMapTest {
+    @Test
+    public void testShardCountIsPowerOfTwo() {
+        assertEquals(1, new ShardedConcurrentMap<String, String>(1).shardCount());
+        assertEquals(4, new ShardedConcurrentMap<String, String>(3).shardCount());
+        assertEquals(64, new ShardedConcurrentMap<String, String>(64).shardCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidShardCount() {
+        new ShardedConcurrentMap<String, String>(0);
+    }
+
+    @Test
+    public void testMapOperations() {
+        ShardedConcurrentMap<Integer, String> map = new ShardedConcurrentMap<>(8);
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            assertNull(map.putIfAbsent(i, "v" + i));
+            expected.put(i, "v" + i);
+        }
+
+        assertEquals("v1", map.putIfAbsent(1, "other"));
+        assertEquals(1000, map.size());
+        assertEquals(expected, map);
+        assertEquals(expected, new HashMap<>(map));
+        assertTrue(map.replace(2, "v2", "two"));
+        assertEquals("two", map.remove(2));
+        assertFalse(map.remove(3, "other"));
+        assertFalse(map.containsKey(2));
+        assertEquals(999, map.entrySet().size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testSingleWinnerPerKey() throws Exception {
+        ShardedConcurrentMap<Integer, Integer> map = new ShardedConcurrentMap<>(16);
+        Map<Integer, Integer> winners = new ConcurrentHashMap<>();
+        AtomicInteger wins = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int t = 0; t < futures.length; t++) {
+                final int thread = t;
+                futures[t] = executor.submit(() -> {
+                    start.await();
+                    for (int key = 0; key < 10000; key++) {
+                        if (map.putIfAbsent(key, thread) == null) {
+                            wins.incrementAndGet();
+                            winners.put(key, thread);
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(10000, wins.get());
+        assertEquals(winners, map);
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test the SpillableCollection.
+ *
+ * @since 0.13
+ */
+public class SpillableCollectionTest {
+    private static final SpillCodec<Long> LONG_CODEC = new SpillCodec<Long>() {
+        @Override
+        public void encode(Long value, ByteBuffer buffer) {
+            buffer.putLong(value);
+        }
+
+        @Override
+        public Long decode(ByteBuffer buffer) {
+            return buffer.getLong();
+        }
+    };
+
+    private static final SpillCodec<String> STRING_CODEC = new SpillCodec<String>() {
+        @Override
+        public void encode(String value, ByteBuffer buffer) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+
+        @Override
+        public String decode(ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testOffHeapSpill() throws Exception {
+        try (SpillableCollection<Long> collection = new SpillableCollection<>(LONG_CODEC, 3, 20, null)) {
+            List<Long> expected = new ArrayList<>();
+            for (long i = 0; i < 10; i++) {
+                collection.add(i);
+                expected.add(i);
+            }
+
+            assertTrue(collection.isSpilled());
+            assertEquals(10, collection.size());
+            assertEquals(expected, new ArrayList<>(collection));
+            assertEquals(expected, collection.stream().collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testMappedSpill() throws Exception {
+        try (SpillableCollection<String> collection = new SpillableCollection<>(STRING_CODEC, 1, 16, folder.getRoot().toPath())) {
+            collection.add("heap");
+            collection.add("one");
+            collection.add("twelve chars");
+            collection.add("three");
+
+            assertEquals(4, collection.size());
+            assertEquals(Arrays.asList("heap", "one", "twelve chars", "three"), new ArrayList<>(collection));
+        }
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testBelowThresholdStaysOnHeap() throws Exception {
+        try (SpillableCollection<Long> collection = SpillableCollection.offHeap(LONG_CODEC, 5)) {
+            collection.add(1L);
+            collection.add(null);
+
+            assertFalse(collection.isSpilled());
+            assertEquals(Arrays.asList(1L, null), new ArrayList<>(collection));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testElementLargerThanChunk() throws Exception {
+        try (SpillableCollection<String> collection = new SpillableCollection<>(STRING_CODEC, 0, 8, null)) {
+            collection.add("does not fit");
+        }
+    }
+
+    @Test
+    public void testLimitedMapStreamsSpilledElements() throws Exception {
+        try (SpillableCollection<Long> collection = new SpillableCollection<>(LONG_CODEC, 2, 32, null)) {
+            for (long i = 0; i < 50; i++) {
+                collection.add(i);
+            }
+
+            List<Long> seen = Collections.synchronizedList(new ArrayList<>());
+            PromiseListImpl<Long> promise = new PromiseListImpl<>();
+            promise.map(4).thenSync(value -> seen.add(value));
+            PromiseImpl<Void> after = (PromiseImpl<Void>) promise.after();
+
+            promise.fulfill(collection);
+
+            assertTrue(after.fulfilled());
+            assertEquals(new ArrayList<>(collection), seen);
+        }
+    }
+}
@@ -15,12 +15,16 @@
  */
 package com.groupon.promise.exception;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 
 import java.net.MalformedURLException;
 
 import org.junit.Test;
 
+import com.groupon.promise.Promise;
+import com.groupon.promise.PromiseImpl;
+
 /**
  * Test the exception utils.
  *
@@ -49,4 +53,42 @@ public class ExceptionUtilsTest {
         Exception noSuppressedException = new Exception();
         assertSame(noSuppressedException, ExceptionUtils.getMostSignificantCause(noSuppressedException));
     }
+
+    @Test
+    public void testGetMostSignificantCauseOutsideFailureSummary() {
+        PromiseException exception = new PromiseException(false);
+        Throwable failure = new UnsupportedOperationException();
+        Throwable suppressed = new IllegalStateException();
+        exception.addFailure(failure);
+        exception.addSuppressed(suppressed);
+
+        assertSame(failure, ExceptionUtils.getMostSignificantCause(exception));
+        assertSame(failure, ExceptionUtils.getMostSignificantCause(exception, UnsupportedOperationException.class));
+        assertSame(failure, ExceptionUtils.getMostSignificantCause(exception, IllegalStateException.class));
+    }
+
+    @Test
+    public void testGetMostSignificantCauseFromNestedAfterFailure() {
+        Throwable stageFailure = new IllegalStateException();
+        Throwable afterFailure = new UnsupportedOperationException();
+
+        PromiseImpl<String> root = new PromiseImpl<>();
+        Promise<String> mid = root.<String, String>thenSync(data -> data).optional(true);
+        mid.thenSync(data -> {
+            throw stageFailure;
+        });
+        mid.after().thenSync(data -> {
+            throw afterFailure;
+        });
+        Promise<Void> dispatch = root.after();
+        root.fulfill("value");
+
+        Throwable reason = dispatch.reason();
+        assertSame(afterFailure, ExceptionUtils.getMostSignificantCause(reason, UnsupportedOperationException.class));
+        assertSame(stageFailure, ExceptionUtils.getMostSignificantCause(reason, IllegalStateException.class));
+        assertSame(stageFailure, ExceptionUtils.getMostSignificantCause(reason));
+        assertSame(stageFailure, reason.getSuppressed()[0]);
+        assertSame(afterFailure, reason.getSuppressed()[1]);
+        assertEquals(1, ((PromiseException) reason).getFailureSummary().count(UnsupportedOperationException.class));
+    }
 }
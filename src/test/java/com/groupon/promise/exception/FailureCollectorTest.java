@@ -0,0 +1,100 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.exception;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Test the bounded failure retention.
+ *
+ * @since 0.13
+ */
+public class FailureCollectorTest {
+    @Test
+    public void testRetentionIsBounded() {
+        FailureCollector collector = new FailureCollector(2, 3);
+        IllegalStateException first = new IllegalStateException();
+        collector.add(first);
+        for (int i = 1; i < 1000; i++) {
+            collector.add(i % 2 == 0 ? new IllegalStateException() : new IOException());
+        }
+
+        PromiseException exception = collector.toException();
+
+        assertEquals(5, exception.getSuppressed().length);
+        assertSame(first, exception.getSuppressed()[0]);
+        assertEquals(995, exception.getDroppedFailureCount());
+        assertEquals(1000, exception.getFailureSummary().total());
+        assertEquals(500, exception.getFailureSummary().count(IllegalStateException.class));
+        assertEquals(500, exception.getFailureSummary().count(IOException.class));
+    }
+
+    @Test
+    public void testNestedExceptionsAreMerged() {
+        FailureCollector nestedCollector = new FailureCollector(1, 0);
+        IOException io = new IOException();
+        nestedCollector.add(io);
+        nestedCollector.add(new IOException());
+        nestedCollector.add(new IllegalStateException());
+
+        IllegalArgumentException first = new IllegalArgumentException();
+        FailureCollector collector = new FailureCollector(10, 0);
+        collector.add(first);
+        collector.add(nestedCollector.toException());
+
+        PromiseException exception = collector.toException();
+
+        assertEquals(2, exception.getSuppressed().length);
+        assertSame(io, exception.getSuppressed()[1]);
+        assertEquals(2, exception.getDroppedFailureCount());
+        assertEquals(4, exception.getFailureSummary().total());
+        assertEquals(2, exception.getFailureSummary().count(IOException.class));
+        assertSame(io, exception.getFailureSummary().first(IOException.class, IllegalStateException.class));
+        assertSame(first, ExceptionUtils.getMostSignificantCause(exception));
+    }
+
+    @Test
+    public void testDeeplyNestedExceptionsAreFlattened() {
+        IllegalStateException leaf = new IllegalStateException();
+        PromiseException inner = new PromiseException(false);
+        inner.addFailure(leaf);
+        IOException io = new IOException();
+        PromiseException middle = new PromiseException(false);
+        middle.addFailure(io);
+        middle.addSuppressed(inner);
+
+        FailureCollector collector = new FailureCollector(10, 0);
+        collector.add(middle);
+
+        PromiseException exception = collector.toException();
+
+        assertEquals(2, exception.getSuppressed().length);
+        assertSame(io, exception.getSuppressed()[0]);
+        assertSame(leaf, exception.getSuppressed()[1]);
+        assertEquals(2, exception.getFailureSummary().total());
+        assertSame(leaf, exception.getFailureSummary().first(IllegalStateException.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeRetention() {
+        new FailureCollector(-1, 0);
+    }
+}
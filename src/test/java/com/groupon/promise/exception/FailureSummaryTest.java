@@ -0,0 +1,72 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.exception;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Test the failure summary index.
+ *
+ * @since 0.13
+ */
+public class FailureSummaryTest {
+    @Test
+    public void testCountsAndFirstInstances() {
+        IllegalStateException first = new IllegalStateException();
+        IOException io = new IOException();
+        PromiseException nested = new PromiseException(false);
+        nested.addFailure(io);
+        nested.addFailure(new IllegalStateException());
+
+        PromiseException exception = new PromiseException(false);
+        exception.addFailure(first);
+        exception.addFailure(nested);
+        exception.addFailure(new IOException());
+
+        FailureSummary summary = exception.getFailureSummary();
+        assertEquals(4, summary.total());
+        assertEquals(4, exception.getSuppressed().length);
+        assertEquals(2, summary.count(IllegalStateException.class));
+        assertEquals(2, summary.count(IOException.class));
+        assertEquals(0, summary.count(IllegalArgumentException.class));
+        assertEquals(Arrays.asList(IllegalStateException.class, IOException.class),
+                Arrays.asList(summary.counts().keySet().toArray()));
+        assertSame(first, summary.first());
+        assertSame(io, summary.first(IOException.class));
+        assertSame(first, summary.first(IOException.class, IllegalStateException.class));
+        assertNull(summary.first(IllegalArgumentException.class));
+    }
+
+    @Test
+    public void testMostSignificantCauseUsesSummary() {
+        IllegalStateException first = new IllegalStateException();
+        IOException io = new IOException();
+        PromiseException exception = new PromiseException(false);
+        exception.addFailure(first);
+        exception.addFailure(io);
+
+        assertSame(io, ExceptionUtils.getMostSignificantCause(exception, IOException.class));
+        assertSame(first, ExceptionUtils.getMostSignificantCause(exception, IllegalArgumentException.class));
+        assertSame(first, ExceptionUtils.getMostSignificantCause(exception));
+    }
+}
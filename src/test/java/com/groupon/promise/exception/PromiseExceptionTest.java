@@ -0,0 +1,61 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.exception;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test the stack trace policy of the promise exceptions.
+ *
+ * @since 0.13
+ */
+public class PromiseExceptionTest {
+    @After
+    public void tearDown() {
+        PromiseException.setWritableStackTrace(true);
+    }
+
+    @Test
+    public void testDefaultCapturesStackTrace() {
+        assertTrue(new PromiseException().getStackTrace().length > 0);
+        assertTrue(new IllegalPromiseException().getStackTrace().length > 0);
+    }
+
+    @Test
+    public void testStacklessConstructor() {
+        PromiseException exception = new PromiseException(false);
+        Exception failure = new IllegalStateException();
+        exception.addSuppressed(failure);
+
+        assertEquals(0, exception.getStackTrace().length);
+        assertSame(failure, exception.getSuppressed()[0]);
+        assertEquals(0, new IllegalPromiseException(false).getStackTrace().length);
+    }
+
+    @Test
+    public void testGlobalPolicy() {
+        PromiseException.setWritableStackTrace(false);
+
+        assertEquals(0, new PromiseException().getStackTrace().length);
+        assertEquals(0, new IllegalPromiseException().getStackTrace().length);
+        assertTrue(new PromiseException(true).getStackTrace().length > 0);
+    }
+}
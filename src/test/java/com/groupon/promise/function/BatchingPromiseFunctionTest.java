@@ -0,0 +1,187 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.groupon.promise.DefaultPromiseFuture;
+import com.groupon.promise.Promise;
+import com.groupon.promise.PromiseFuture;
+import com.groupon.promise.PromiseListImpl;
+
+/**
+ * Test the BatchingPromiseFunction.
+ *
+ * @since 0.13
+ */
+public class BatchingPromiseFunctionTest {
+    private List<Runnable> ticks;
+    private List<Collection<Integer>> bulkCalls;
+
+    @Before
+    public void setUp() {
+        ticks = new ArrayList<>();
+        bulkCalls = new ArrayList<>();
+    }
+
+    @Test
+    public void testKeysCoalescedUntilTick() {
+        BatchingPromiseFunction<Integer, String> function = new BatchingPromiseFunction<>(this::bulk, ticks::add, 100);
+        ConcurrentLinkedQueue<String> results = new ConcurrentLinkedQueue<>();
+
+        PromiseListImpl<Integer> promiseList = new PromiseListImpl<>();
+        promiseList.map().thenAsync(function).thenSync(results::add);
+        Promise<Void> dispatches = promiseList.after();
+        promiseList.fulfill(Arrays.asList(1, 2, 3, 4, 5));
+
+        assertTrue(bulkCalls.isEmpty());
+        assertEquals(1, ticks.size());
+        assertTrue(dispatches.pending());
+
+        ticks.remove(0).run();
+
+        assertEquals(1, bulkCalls.size());
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), new ArrayList<>(bulkCalls.get(0)));
+        assertEquals(5, results.size());
+        assertTrue(results.containsAll(Arrays.asList("v1", "v2", "v3", "v4", "v5")));
+        assertTrue(dispatches.fulfilled());
+    }
+
+    @Test
+    public void testBatchFlushedWhenFull() {
+        BatchingPromiseFunction<Integer, String> function = new BatchingPromiseFunction<>(this::bulk, ticks::add, 2);
+
+        PromiseListImpl<Integer> promiseList = new PromiseListImpl<>();
+        promiseList.map().thenAsync(function);
+        Promise<Void> dispatches = promiseList.after();
+        promiseList.fulfill(Arrays.asList(1, 2, 3, 4, 5));
+
+        assertEquals(2, bulkCalls.size());
+        assertEquals(Arrays.asList(1, 2), new ArrayList<>(bulkCalls.get(0)));
+        assertEquals(Arrays.asList(3, 4), new ArrayList<>(bulkCalls.get(1)));
+        assertTrue(dispatches.pending());
+
+        for (Runnable tick : ticks) {
+            tick.run();
+        }
+
+        assertEquals(3, bulkCalls.size());
+        assertEquals(Arrays.asList(5), new ArrayList<>(bulkCalls.get(2)));
+        assertTrue(dispatches.fulfilled());
+    }
+
+    @Test
+    public void testDuplicateKeysShareBulkCall() {
+        BatchingPromiseFunction<Integer, String> function = new BatchingPromiseFunction<>(this::bulk, ticks::add, 100);
+
+        PromiseFuture<String> first = function.handle(1);
+        PromiseFuture<String> second = function.handle(1);
+        function.flush();
+
+        assertEquals(1, bulkCalls.size());
+        assertEquals(1, bulkCalls.get(0).size());
+        assertEquals("v1", first.result());
+        assertEquals("v1", second.result());
+    }
+
+    @Test
+    public void testMissingKeyIsNull() {
+        BatchingPromiseFunction<Integer, String> function = new BatchingPromiseFunction<>(
+                keys -> new DefaultPromiseFuture<>(new HashMap<>()), ticks::add, 100);
+
+        PromiseFuture<String> future = function.handle(1);
+        function.flush();
+
+        assertTrue(future.succeeded());
+        assertNull(future.result());
+    }
+
+    @Test
+    public void testBulkFailureRejectsEveryKey() {
+        Exception error = new Exception("bulk failed");
+        BatchingPromiseFunction<Integer, String> function = new BatchingPromiseFunction<>(
+                keys -> new DefaultPromiseFuture<>(error), ticks::add, 100);
+
+        PromiseListImpl<Integer> promiseList = new PromiseListImpl<>();
+        promiseList.map().thenAsync(function);
+        Promise<Void> dispatches = promiseList.after();
+        promiseList.fulfill(Arrays.asList(1, 2));
+        ticks.remove(0).run();
+
+        assertTrue(dispatches.rejected());
+        assertEquals(error, dispatches.reason().getSuppressed()[0]);
+    }
+
+    @Test
+    public void testBulkExceptionRejectsEveryKey() {
+        RuntimeException error = new RuntimeException("bulk failed");
+        BatchingPromiseFunction<Integer, String> function = new BatchingPromiseFunction<>(
+                keys -> {
+                    throw error;
+                }, ticks::add, 100);
+
+        PromiseFuture<String> future = function.handle(1);
+        function.flush();
+
+        assertTrue(future.failed());
+        assertEquals(error, future.cause());
+    }
+
+    @Test
+    public void testFlushWithoutKeys() {
+        BatchingPromiseFunction<Integer, String> function = new BatchingPromiseFunction<>(this::bulk, ticks::add, 100);
+        function.flush();
+
+        assertTrue(bulkCalls.isEmpty());
+    }
+
+    @Test
+    public void testEquivalence() {
+        BatchingPromiseFunction<Integer, String> functionA = new BatchingPromiseFunction<>(this::bulk, ticks::add, 100);
+        BatchingPromiseFunction<Integer, String> functionB = new BatchingPromiseFunction<>(this::bulk, ticks::add, 100);
+
+        assertTrue(functionA.equivalent(functionA));
+        assertFalse(functionA.equivalent(functionB));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBatchSize() {
+        new BatchingPromiseFunction<>(this::bulk, ticks::add, 0);
+    }
+
+    private PromiseFuture<Map<Integer, String>> bulk(Collection<Integer> keys) {
+        bulkCalls.add(new ArrayList<>(keys));
+        Map<Integer, String> values = new HashMap<>();
+        for (Integer key : keys) {
+            values.put(key, "v" + key);
+        }
+        return new DefaultPromiseFuture<>(values);
+    }
+}
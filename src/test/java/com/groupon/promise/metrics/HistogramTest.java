@@ -0,0 +1,76 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test the Histogram.
+ *
+ * @since 0.13
+ */
+public class HistogramTest {
+    @Test
+    public void testBucketsRoundTrip() {
+        long[] values = {0L, 1L, 31L, 32L, 63L, 64L, 1000L, 123456789L, Long.MAX_VALUE};
+        for (long value : values) {
+            long highest = Histogram.highestEquivalentValue(Histogram.index(value));
+            assertTrue(value + " -> " + highest, highest >= value);
+            assertTrue(value + " -> " + highest, highest - value <= Math.max(value / 32, 0L) + 1);
+        }
+    }
+
+    @Test
+    public void testQuantiles() {
+        Histogram histogram = new Histogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(1000, histogram.count());
+        assertEquals(1000000L, histogram.max());
+        assertEquals(500500.0, histogram.mean(), 0.0);
+        assertWithin(500000L, histogram.valueAtQuantile(0.5));
+        assertWithin(990000L, histogram.valueAtQuantile(0.99));
+        assertEquals(1000000L, histogram.valueAtQuantile(1.0));
+    }
+
+    @Test
+    public void testReset() {
+        Histogram histogram = new Histogram();
+        histogram.record(-5L);
+        histogram.record(10L);
+        assertEquals(10L, histogram.max());
+        assertEquals(0L, histogram.valueAtQuantile(0.5));
+
+        histogram.reset();
+
+        assertEquals(0L, histogram.count());
+        assertEquals(0L, histogram.valueAtQuantile(0.99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidQuantile() {
+        new Histogram().valueAtQuantile(1.5);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(expected + " vs " + actual, Math.abs(actual - expected) <= expected / 32);
+    }
+}
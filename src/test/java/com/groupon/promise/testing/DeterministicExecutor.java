@@ -0,0 +1,118 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.testing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import javax.annotation.Nonnull;
+
+/**
+ * An Executor which queues tasks until the test runs them, on the test thread.  Tasks can be run in submission order,
+ * one at a time in any chosen order, or in a random order derived from a seed, so every interleaving of the
+ * continuations of concurrent chains can be reproduced exactly.
+ *
+ * <pre>
+ * DeterministicExecutor executor = new DeterministicExecutor();
+ * PromiseImpl&lt;String&gt; promise = new PromiseImpl&lt;&gt;(executor);
+ * promise.fulfill("value");
+ * executor.runAll();
+ * </pre>
+ *
+ * @since 0.13
+ */
+public final class DeterministicExecutor implements Executor {
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @Override
+    public synchronized void execute(@Nonnull Runnable command) {
+        tasks.add(command);
+    }
+
+    /**
+     * The number of tasks waiting to run.
+     *
+     * @return The number of pending tasks
+     */
+    public synchronized int pendingTasks() {
+        return tasks.size();
+    }
+
+    /**
+     * Run the oldest pending task.
+     *
+     * @return False if no task was pending
+     */
+    public boolean runNext() {
+        Runnable task;
+        synchronized (this) {
+            if (tasks.isEmpty()) {
+                return false;
+            }
+            task = tasks.remove(0);
+        }
+        task.run();
+        return true;
+    }
+
+    /**
+     * Run the pending task at the index, in submission order, leaving the others queued.
+     *
+     * @param index The index of the task to run
+     * @throws IndexOutOfBoundsException if fewer tasks are pending
+     */
+    public void run(int index) {
+        Runnable task;
+        synchronized (this) {
+            task = tasks.remove(index);
+        }
+        task.run();
+    }
+
+    /**
+     * Run tasks in submission order until none are pending, including tasks submitted while running.
+     *
+     * @return The number of tasks run
+     */
+    public int runAll() {
+        int run = 0;
+        while (runNext()) {
+            run++;
+        }
+        return run;
+    }
+
+    /**
+     * Run tasks in a random order until none are pending.  The same seed and the same submissions always produce the
+     * same order.
+     *
+     * @param seed The seed of the order
+     * @return The number of tasks run
+     */
+    public int runAll(long seed) {
+        Random random = new Random(seed);
+        int run = 0;
+        while (true) {
+            int pending = pendingTasks();
+            if (pending == 0) {
+                return run;
+            }
+            run(random.nextInt(pending));
+            run++;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.groupon.promise.PromiseImpl;
+
+/**
+ * Test the DeterministicExecutor.
+ *
+ * @since 0.13
+ */
+public class DeterministicExecutorTest {
+    private DeterministicExecutor executor;
+
+    @Before
+    public void setUp() {
+        executor = new DeterministicExecutor();
+    }
+
+    @Test
+    public void testTasksRunOnlyWhenDriven() {
+        List<String> executed = new ArrayList<>();
+
+        executor.execute(() -> executed.add("one"));
+        executor.execute(() -> {
+            executed.add("two");
+            executor.execute(() -> executed.add("three"));
+        });
+
+        assertTrue(executed.isEmpty());
+        assertEquals(2, executor.pendingTasks());
+
+        assertTrue(executor.runNext());
+        assertEquals(Arrays.asList("one"), executed);
+
+        assertEquals(2, executor.runAll());
+        assertEquals(Arrays.asList("one", "two", "three"), executed);
+        assertFalse(executor.runNext());
+    }
+
+    @Test
+    public void testRunChosenTask() {
+        List<String> executed = new ArrayList<>();
+
+        executor.execute(() -> executed.add("one"));
+        executor.execute(() -> executed.add("two"));
+        executor.run(1);
+        executor.runAll();
+
+        assertEquals(Arrays.asList("two", "one"), executed);
+    }
+
+    @Test
+    public void testChainRunsOnExecutor() {
+        List<String> executed = new ArrayList<>();
+        PromiseImpl<String> promise = new PromiseImpl<>(executor);
+        promise.thenSync(value -> executed.add(value));
+
+        promise.fulfill("value");
+        assertTrue(executed.isEmpty());
+
+        executor.runAll();
+        assertEquals(Arrays.asList("value"), executed);
+    }
+
+    @Test
+    public void testSeededInterleavingIsReproducible() {
+        List<String> first = interleave(42L);
+
+        assertEquals(first, interleave(42L));
+        assertEquals(6, first.size());
+    }
+
+    private List<String> interleave(long seed) {
+        List<String> executed = new ArrayList<>();
+        for (String name : Arrays.asList("a", "b", "c")) {
+            PromiseImpl<String> promise = new PromiseImpl<>(executor);
+            promise.thenSync(value -> executed.add(value + "1"));
+            promise.thenSync(value -> executed.add(value + "2"));
+            promise.fulfill(name);
+        }
+        executor.runAll(seed);
+        return executed;
+    }
+}
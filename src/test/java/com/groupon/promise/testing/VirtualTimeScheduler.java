@@ -0,0 +1,299 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.testing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+
+import com.groupon.promise.DefaultPromiseFuture;
+import com.groupon.promise.PromiseFuture;
+
+/**
+ * A ScheduledExecutorService whose clock only moves when the test advances it.  Tasks run on the thread advancing the
+ * clock, in order of their scheduled time and then of submission, so timeouts, delays and rate limits in a promise
+ * chain can be verified without sleeping and without depending on thread scheduling.
+ *
+ * <pre>
+ * VirtualTimeScheduler scheduler = new VirtualTimeScheduler();
+ * promise.map(2).thenAsync(value -&gt; scheduler.delay(value, 10, TimeUnit.MILLISECONDS));
+ * promise.fulfill(elements);
+ * scheduler.advanceBy(10, TimeUnit.MILLISECONDS);
+ * </pre>
+ *
+ * The scheduler is safe to submit to from any thread, but is meant to be advanced by a single test thread.
+ *
+ * @since 0.13
+ */
+public final class VirtualTimeScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+    private final PriorityQueue<VirtualTask<?>> queue = new PriorityQueue<>();
+    private long now;
+    private long sequence;
+    private boolean shutdown;
+
+    /**
+     * The current virtual time.
+     *
+     * @return The nanoseconds the clock has been advanced since creation
+     */
+    public synchronized long nanoTime() {
+        return now;
+    }
+
+    /**
+     * The number of tasks waiting to run, including periodic tasks.
+     *
+     * @return The number of pending tasks
+     */
+    public synchronized int pendingTasks() {
+        return queue.size();
+    }
+
+    /**
+     * Run the tasks which are due at the current time, including tasks they submit without a delay.
+     *
+     * @return The number of tasks run
+     */
+    public int runDue() {
+        return advanceTo(nanoTime());
+    }
+
+    /**
+     * Advance the clock, running every task which becomes due in order of its scheduled time.  While a task runs the
+     * clock reads its scheduled time.
+     *
+     * @param delay The time to advance by
+     * @param unit The unit of the delay
+     * @return The number of tasks run
+     * @throws IllegalArgumentException if the delay is negative
+     */
+    public int advanceBy(long delay, @Nonnull TimeUnit unit) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("Delay cannot be negative");
+        }
+        return advanceTo(nanoTime() + unit.toNanos(delay));
+    }
+
+    /**
+     * Advance the clock to the time of the next pending task and run every task due at that time.
+     *
+     * @return The number of tasks run, 0 if nothing is pending
+     */
+    public int advanceToNext() {
+        VirtualTask<?> next;
+        synchronized (this) {
+            next = queue.peek();
+        }
+        return next == null ? 0 : advanceTo(next.time);
+    }
+
+    private int advanceTo(long target) {
+        int run = 0;
+        while (true) {
+            VirtualTask<?> task;
+            synchronized (this) {
+                task = queue.peek();
+                if (task == null || task.time > target) {
+                    now = Math.max(now, target);
+                    return run;
+                }
+                queue.poll();
+                now = task.time;
+            }
+            task.run();
+            run++;
+        }
+    }
+
+    /**
+     * A future completed with the value once the delay has elapsed, for simulating asynchronous functions.
+     *
+     * @param <T> The type of the value
+     * @param value The value
+     * @param delay The delay
+     * @param unit The unit of the delay
+     * @return The future
+     */
+    public <T> PromiseFuture<T> delay(T value, long delay, @Nonnull TimeUnit unit) {
+        DefaultPromiseFuture<T> future = new DefaultPromiseFuture<>();
+        schedule(() -> {
+            future.setResult(value);
+        }, delay, unit);
+        return future;
+    }
+
+    /**
+     * A future failed with the cause once the delay has elapsed, for simulating asynchronous functions.
+     *
+     * @param <T> The type of the value
+     * @param cause The failure
+     * @param delay The delay
+     * @param unit The unit of the delay
+     * @return The future
+     */
+    public <T> PromiseFuture<T> fail(Throwable cause, long delay, @Nonnull TimeUnit unit) {
+        DefaultPromiseFuture<T> future = new DefaultPromiseFuture<>();
+        schedule(() -> {
+            future.setFailure(cause);
+        }, delay, unit);
+        return future;
+    }
+
+    @Override
+    public void execute(@Nonnull Runnable command) {
+        schedule(command, 0, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(@Nonnull Runnable command, long delay, @Nonnull TimeUnit unit) {
+        return enqueue(Executors.callable(command), unit.toNanos(delay), 0L);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(@Nonnull Callable<V> callable, long delay, @Nonnull TimeUnit unit) {
+        return enqueue(callable, unit.toNanos(delay), 0L);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(@Nonnull Runnable command, long initialDelay, long period,
+                                                  @Nonnull TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive");
+        }
+        return enqueue(Executors.callable(command), unit.toNanos(initialDelay), unit.toNanos(period));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(@Nonnull Runnable command, long initialDelay, long delay,
+                                                     @Nonnull TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException("Delay must be positive");
+        }
+        // Tasks take no virtual time, so a fixed delay is the same as a fixed rate.
+        return enqueue(Executors.callable(command), unit.toNanos(initialDelay), unit.toNanos(delay));
+    }
+
+    private synchronized <V> VirtualTask<V> enqueue(Callable<V> callable, long delayNanos, long periodNanos) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Scheduler has been shut down");
+        }
+        VirtualTask<V> task = new VirtualTask<>(callable, now + Math.max(0L, delayNanos), periodNanos);
+        queue.add(task);
+        return task;
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public synchronized List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> pending = new ArrayList<>(queue);
+        queue.clear();
+        return pending;
+    }
+
+    @Override
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public synchronized boolean isTerminated() {
+        return shutdown && queue.isEmpty();
+    }
+
+    /**
+     * Virtual time cannot pass while waiting, so this only reports whether the scheduler has terminated.
+     */
+    @Override
+    public boolean awaitTermination(long timeout, @Nonnull TimeUnit unit) {
+        return isTerminated();
+    }
+
+    private final class VirtualTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+        private final long sequenceNumber;
+        private final long period;
+        private long time;
+
+        VirtualTask(Callable<V> callable, long time, long period) {
+            super(callable);
+            this.sequenceNumber = sequence++;
+            this.time = time;
+            this.period = period;
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return period != 0L;
+        }
+
+        @Override
+        public long getDelay(@Nonnull TimeUnit unit) {
+            return unit.convert(time - nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(@Nonnull Delayed other) {
+            if (other == this) {
+                return 0;
+            } else if (other instanceof VirtualTask) {
+                VirtualTask<?> that = (VirtualTask<?>) other;
+                int byTime = Long.compare(time, that.time);
+                return byTime != 0 ? byTime : Long.compare(sequenceNumber, that.sequenceNumber);
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        @Override
+        public void run() {
+            if (!isPeriodic()) {
+                super.run();
+            } else if (runAndReset()) {
+                synchronized (VirtualTimeScheduler.this) {
+                    time += period;
+                    if (!shutdown) {
+                        queue.add(this);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                synchronized (VirtualTimeScheduler.this) {
+                    queue.remove(this);
+                }
+            }
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2015 Groupon.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.groupon.promise.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.groupon.promise.PromiseImpl;
+import com.groupon.promise.PromiseListImpl;
+
+/**
+ * Test the VirtualTimeScheduler.
+ *
+ * @since 0.13
+ */
+public class VirtualTimeSchedulerTest {
+    private VirtualTimeScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new VirtualTimeScheduler();
+    }
+
+    @Test
+    public void testTasksRunInOrderOfTimeThenSubmission() {
+        List<String> executed = new ArrayList<>();
+
+        scheduler.schedule(() -> executed.add("late"), 20, TimeUnit.MILLISECONDS);
+        scheduler.schedule(() -> executed.add("early"), 10, TimeUnit.MILLISECONDS);
+        scheduler.schedule(() -> executed.add("early2"), 10, TimeUnit.MILLISECONDS);
+        scheduler.execute(() -> executed.add("now"));
+
+        assertTrue(executed.isEmpty());
+        assertEquals(1, scheduler.runDue());
+        assertEquals(Arrays.asList("now"), executed);
+
+        assertEquals(0, scheduler.advanceBy(9, TimeUnit.MILLISECONDS));
+        assertEquals(2, scheduler.advanceBy(1, TimeUnit.MILLISECONDS));
+        assertEquals(Arrays.asList("now", "early", "early2"), executed);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), scheduler.nanoTime());
+
+        assertEquals(1, scheduler.advanceToNext());
+        assertEquals(Arrays.asList("now", "early", "early2", "late"), executed);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(20), scheduler.nanoTime());
+        assertEquals(0, scheduler.pendingTasks());
+    }
+
+    @Test
+    public void testTaskSeesItsScheduledTime() {
+        AtomicLong seen = new AtomicLong();
+
+        scheduler.schedule(() -> seen.set(scheduler.nanoTime()), 5, TimeUnit.MILLISECONDS);
+        scheduler.advanceBy(1, TimeUnit.SECONDS);
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), seen.get());
+        assertEquals(TimeUnit.SECONDS.toNanos(1), scheduler.nanoTime());
+    }
+
+    @Test
+    public void testPeriodicTask() {
+        List<Long> times = new ArrayList<>();
+
+        ScheduledFuture<?> future = scheduler.scheduleAtFixedRate(
+                () -> times.add(TimeUnit.NANOSECONDS.toMillis(scheduler.nanoTime())), 5, 10, TimeUnit.MILLISECONDS);
+        scheduler.advanceBy(30, TimeUnit.MILLISECONDS);
+
+        assertEquals(Arrays.asList(5L, 15L, 25L), times);
+        assertEquals(1, scheduler.pendingTasks());
+
+        assertTrue(future.cancel(false));
+        assertEquals(0, scheduler.pendingTasks());
+        scheduler.advanceBy(30, TimeUnit.MILLISECONDS);
+        assertEquals(3, times.size());
+    }
+
+    @Test
+    public void testCancelledTaskDoesNotRun() {
+        List<String> executed = new ArrayList<>();
+
+        ScheduledFuture<?> future = scheduler.schedule(() -> executed.add("cancelled"), 5, TimeUnit.MILLISECONDS);
+        future.cancel(false);
+        scheduler.advanceBy(10, TimeUnit.MILLISECONDS);
+
+        assertTrue(executed.isEmpty());
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    public void testDelayedPromise() {
+        AtomicReference<String> result = new AtomicReference<>();
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        promise.thenAsync(value -> scheduler.delay(value + "-fetched", 50, TimeUnit.MILLISECONDS))
+                .thenSync(value -> {
+                    result.set(value);
+                    return null;
+                });
+
+        promise.fulfill("value");
+        scheduler.advanceBy(49, TimeUnit.MILLISECONDS);
+        assertNull(result.get());
+
+        scheduler.advanceBy(1, TimeUnit.MILLISECONDS);
+        assertEquals("value-fetched", result.get());
+    }
+
+    @Test
+    public void testFailedPromise() {
+        Exception failure = new Exception("failed");
+        AtomicReference<Throwable> result = new AtomicReference<>();
+        PromiseImpl<String> promise = new PromiseImpl<>();
+        promise.thenAsync(value -> scheduler.<String>fail(failure, 50, TimeUnit.MILLISECONDS))
+                .thenSync(value -> value, error -> {
+                    result.set(error);
+                    return null;
+                });
+
+        promise.fulfill("value");
+        scheduler.advanceBy(50, TimeUnit.MILLISECONDS);
+
+        assertSame(failure, result.get());
+    }
+
+    @Test
+    public void testMapConcurrencyLimitInVirtualTime() {
+        List<Long> starts = new ArrayList<>();
+        AtomicLong completed = new AtomicLong(-1L);
+        PromiseListImpl<Integer> promise = new PromiseListImpl<>();
+        promise.map(2).thenAsync(value -> {
+            starts.add(TimeUnit.NANOSECONDS.toMillis(scheduler.nanoTime()));
+            return scheduler.delay(value, 10, TimeUnit.MILLISECONDS);
+        });
+        promise.after().thenSync(value -> {
+            completed.set(TimeUnit.NANOSECONDS.toMillis(scheduler.nanoTime()));
+            return null;
+        });
+
+        promise.fulfill(Arrays.asList(1, 2, 3, 4, 5));
+        while (scheduler.advanceToNext() > 0) {
+            assertFalse(scheduler.isTerminated());
+        }
+
+        assertEquals(Arrays.asList(0L, 0L, 10L, 10L, 20L), starts);
+        assertEquals(30L, completed.get());
+    }
+}